@@ -0,0 +1,37 @@
+package com.guidescope.benchmarks;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of benchmarks.jar: the JMH command line, except that results
+ * are written as JSON to jmh-results/jmh-YYYYMMDD-HHMMSS.json unless -rf or
+ * -rff is given. Two such files can be compared with ResultComparison.
+ */
+public final class BenchmarkMain {
+
+    private static final DateTimeFormatter RUN_ID = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> argv = new ArrayList<>(Arrays.asList(args));
+        if (!argv.contains("-rf")) {
+            argv.add("-rf");
+            argv.add("json");
+        }
+        if (!argv.contains("-rff")) {
+            Path file = Path.of("jmh-results", "jmh-" + LocalDateTime.now().format(RUN_ID) + ".json");
+            Files.createDirectories(file.getParent());
+            argv.add("-rff");
+            argv.add(file.toString());
+        }
+        org.openjdk.jmh.Main.main(argv.toArray(String[]::new));
+    }
+}
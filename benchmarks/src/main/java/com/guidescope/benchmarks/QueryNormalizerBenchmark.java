@@ -0,0 +1,55 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.search.NormalizedQuery;
+import com.guidescope.search.QueryNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per request of turning the q parameter into the normalized and prefix
+ * query forms.
+ *
+ * - regexChain: the previous trim/toLowerCase/replaceAll sequence from
+ * SearchService (three regex passes plus one per prefix query)
+ * - normalizer: QueryNormalizer.normalize, one pass over the characters
+ *
+ * Run with -prof gc to compare the bytes allocated per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QueryNormalizerBenchmark {
+
+    @Param({
+            "heart failure",
+            "AHA/ACC Guideline for the Management of Heart Failure (2022)",
+            "Ménière's disease" })
+    public String query;
+
+    @Benchmark
+    public String[] regexChain() {
+        String normalized = query.trim().toLowerCase();
+        normalized = normalized.replaceAll("[^a-z0-9\\s]", " ");
+        normalized = normalized.replaceAll("\\s+", " ").trim();
+        String prefixQuery = normalized.isEmpty() ? "" : normalized.replaceAll("\\s+", ":* & ") + ":*";
+        return new String[] { normalized, prefixQuery };
+    }
+
+    @Benchmark
+    public NormalizedQuery normalizer() {
+        return QueryNormalizer.normalize(query, true);
+    }
+}
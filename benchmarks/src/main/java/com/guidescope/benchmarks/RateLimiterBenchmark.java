@@ -0,0 +1,77 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.ratelimit.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per request of RateLimiter.tryAcquire under contention.
+ *
+ * - hotKey: every thread hits the same client, so all CAS on one bucket
+ * - spreadKeys: threads pick among `keys` clients (a crawler spray when keys
+ * exceeds the table size)
+ * - rejected: a client far over its budget, the path taken during abuse
+ *
+ * Run with -prof gc to confirm the admitted path does not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final long MAX_KEYS = 100_000;
+
+    @Param({ "1000", "1000000" })
+    public int keys;
+
+    private RateLimiter unlimited;
+    private RateLimiter exhausted;
+    private String[] addresses;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Budgets chosen so the measured path is always admit (unlimited) or reject (exhausted)
+        unlimited = new RateLimiter(1_000_000_000L, Duration.ofSeconds(1), 1_000_000_000L, MAX_KEYS);
+        exhausted = new RateLimiter(1, Duration.ofDays(1), 1, MAX_KEYS);
+        exhausted.tryAcquire("10.0.0.1");
+
+        addresses = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            addresses[i] = "10." + ((i >> 16) & 0xff) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff);
+        }
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return unlimited.tryAcquire("10.0.0.1");
+    }
+
+    @Benchmark
+    public long spreadKeys() {
+        return unlimited.tryAcquire(addresses[ThreadLocalRandom.current().nextInt(addresses.length)]);
+    }
+
+    @Benchmark
+    public long rejected() {
+        return exhausted.tryAcquire("10.0.0.1");
+    }
+}
@@ -0,0 +1,75 @@
+package com.guidescope.benchmarks;
+
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Compares two JMH JSON result files benchmark by benchmark (matched on name
+ * and parameters) and exits with status 1 if any score regressed by more
+ * than the threshold, so it can gate a CI job.
+ *
+ * Scores are lower-is-better for time modes (avgt, sample, ss) and
+ * higher-is-better for throughput (thrpt).
+ *
+ * Run: java -cp benchmarks/target/benchmarks.jar com.guidescope.benchmarks.ResultComparison baseline.json current.json [thresholdPercent]
+ */
+public final class ResultComparison {
+
+    private ResultComparison() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultComparison <baseline.json> <current.json> [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : 5.0;
+
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        Map<String, JsonNode> baseline = index(jsonMapper.readTree(new File(args[0])));
+        Map<String, JsonNode> current = index(jsonMapper.readTree(new File(args[1])));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "benchmark", "baseline", "current", "change");
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            String unit = after.path("primaryMetric").path("scoreUnit").asString();
+            double score = after.path("primaryMetric").path("score").asDouble();
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s  %s%n", entry.getKey(), "-", score, "new", unit);
+                continue;
+            }
+            double previous = before.path("primaryMetric").path("score").asDouble();
+            double change = (previous != 0) ? (score - previous) * 100 / previous : 0;
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asString());
+            boolean regressed = higherIsBetter ? change < -threshold : change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%%  %s%s%n", entry.getKey(), previous, score, change, unit,
+                    regressed ? "  REGRESSION" : "");
+        }
+
+        System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            StringJoiner params = new StringJoiner(",", "(", ")").setEmptyValue("");
+            for (Map.Entry<String, JsonNode> param : result.path("params").properties()) {
+                params.add(param.getKey() + "=" + param.getValue().asString());
+            }
+            byKey.put(result.path("benchmark").asString() + params + " [" + result.path("mode").asString() + "]",
+                    result);
+        }
+        return byKey;
+    }
+}
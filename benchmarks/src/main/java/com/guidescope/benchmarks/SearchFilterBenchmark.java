@@ -0,0 +1,108 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.analytics.SearchEventLog;
+import com.guidescope.config.SearchRequestLoggingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cost per request of SearchRequestLoggingFilter (rate limiting, event
+ * capture) in front of a no-op handler, with 8 threads.
+ *
+ * - admitted: budget never exhausted, the path of every normal request
+ * - rejected: budget exhausted, the path taken during abuse (429)
+ * - sharedClient=true: every thread uses one address (clients behind one NAT
+ * gateway), so all threads contend on one bucket
+ *
+ * The event log is disabled, so the numbers exclude the ring buffer hand-off
+ * (see SearchEventRing) and log output (no SLF4J provider on the classpath).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SearchFilterBenchmark {
+
+    private static final FilterChain HANDLER = (request, response) -> ((HttpServletResponse) response).setStatus(200);
+
+    @Param({ "true", "false" })
+    public boolean sharedClient;
+
+    private SearchRequestLoggingFilter unlimited;
+    private SearchRequestLoggingFilter exhausted;
+    private final AtomicInteger clients = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SearchEventLog events = new SearchEventLog(false, "target/search-events", 1024, new SimpleMeterRegistry(), null);
+        // Budgets chosen so the measured path is always admit (unlimited) or reject (exhausted, after the first)
+        Duration second = Duration.ofSeconds(1);
+        Duration day = Duration.ofDays(1);
+        unlimited = new SearchRequestLoggingFilter(events, 100_000,
+                1_000_000_000L, second, 1_000_000_000L, 1_000_000_000L, second, 1_000_000_000L);
+        exhausted = new SearchRequestLoggingFilter(events, 100_000, 1, day, 1, 1, day, 1);
+    }
+
+    @State(Scope.Thread)
+    public static class Exchange {
+
+        MockHttpServletRequest request;
+        MockHttpServletResponse response;
+
+        @Setup(Level.Trial)
+        public void setUp(SearchFilterBenchmark benchmark) {
+            int client = benchmark.sharedClient ? 0 : benchmark.clients.incrementAndGet();
+            request = new MockHttpServletRequest("GET", "/search");
+            request.setRemoteAddr("10.0." + (client >> 8) + "." + (client & 0xff));
+            request.addParameter("q", "heart failure");
+            request.addParameter("type", "guideline");
+            request.addParameter("region", "US");
+            response = new MockHttpServletResponse();
+        }
+
+        MockHttpServletResponse resetResponse() {
+            response.setCommitted(false);
+            response.reset();
+            return response;
+        }
+    }
+
+    @Benchmark
+    public int admitted(Exchange exchange) throws IOException, ServletException {
+        MockHttpServletResponse response = exchange.resetResponse();
+        unlimited.doFilter(exchange.request, response, HANDLER);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int rejected(Exchange exchange) throws IOException, ServletException {
+        MockHttpServletResponse response = exchange.resetResponse();
+        exhausted.doFilter(exchange.request, response, HANDLER);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,200 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.dto.SearchResponseDTO;
+import com.guidescope.dto.SearchResultDTO;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Deterministic search rows and responses shaped like the production corpus
+ * (guideline titles, author lists, 3-6 keywords, full citations).
+ */
+final class SearchFixtures {
+
+    private static final String[] TYPES = { "guideline", "consensus", "position", "scientific" };
+    private static final String[] REGIONS = { "US", "Europe", "UK", "International" };
+    private static final String[] FIELDS = { "Cardiology", "Oncology", "Nephrology", "Endocrinology" };
+    private static final String[] KEYWORDS = { "heart failure", "hypertension", "diabetes", "ckd", "screening",
+            "anticoagulation", "lipids", "imaging" };
+
+    private SearchFixtures() {
+    }
+
+    /**
+     * Full-projection search rows in SearchResultRowMapper column order (id,
+     * fields, score, sort_year), with keywords as a java.sql.Array the way
+     * PgJDBC hands them out.
+     */
+    static List<Object[]> rows(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SearchResultDTO result = result(i);
+            rows.add(new Object[] {
+                    result.getId(), result.getType(), result.getRegion(), result.getField(), result.getTitle(),
+                    result.getYear(), result.getLink(), result.getAuthors(), result.getSource(),
+                    result.getCitation(), new TextArray(result.getKeywords()), 0.9 - i * 0.01, result.getYear() });
+        }
+        return rows;
+    }
+
+    static SearchResponseDTO response(int count) {
+        List<SearchResultDTO> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(result(i));
+        }
+        return SearchResponseDTO.builder()
+                .results(results)
+                .total(1250L)
+                .limit(count)
+                .offset(0)
+                .build();
+    }
+
+    static SearchResultDTO result(int i) {
+        String[] keywords = new String[3 + i % 4];
+        for (int k = 0; k < keywords.length; k++) {
+            keywords[k] = KEYWORDS[(i + k) % KEYWORDS.length];
+        }
+        int year = 2010 + i % 15;
+        String field = FIELDS[i % FIELDS.length];
+        return SearchResultDTO.builder()
+                .id(new UUID(0x6a1d3c0e5b7f4a21L, i))
+                .type(TYPES[i % TYPES.length])
+                .region(REGIONS[i % REGIONS.length])
+                .field(field)
+                .title(year + " Guideline for the Management of Patients With " + field + " Conditions, Part " + i)
+                .year(year)
+                .link("https://www.ahajournals.org/doi/10.1161/CIR.00000000000" + (1000 + i))
+                .authors("Heidenreich PA, Bozkurt B, Aguilar D, Allen LA, Byun JJ, Colvin MM, Deswal A")
+                .source("Circulation")
+                .citation("Circulation. " + year + ";145:e895-e1032. doi:10.1161/CIR.00000000000" + (1000 + i))
+                .keywords(keywords)
+                .build();
+    }
+
+    /**
+     * A forward-only ResultSet over rows (1-based columns), implementing just
+     * the getters SearchResultRowMapper uses. Dispatch goes through a dynamic
+     * proxy, which adds a few nanoseconds per column.
+     */
+    static RowsResultSet resultSet(List<Object[]> rows) {
+        return new RowsResultSet(rows);
+    }
+
+    static final class RowsResultSet implements InvocationHandler {
+
+        private final List<Object[]> rows;
+        private final ResultSet resultSet;
+        private int row = -1;
+        private boolean wasNull;
+
+        private RowsResultSet(List<Object[]> rows) {
+            this.rows = rows;
+            this.resultSet = (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, this);
+        }
+
+        ResultSet rewind() {
+            row = -1;
+            return resultSet;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            return switch (method.getName()) {
+                case "next" -> ++row < rows.size();
+                case "wasNull" -> wasNull;
+                case "getInt" -> {
+                    Object value = column(args);
+                    yield (value != null) ? ((Number) value).intValue() : 0;
+                }
+                case "getDouble" -> {
+                    Object value = column(args);
+                    yield (value != null) ? ((Number) value).doubleValue() : 0.0;
+                }
+                case "getString", "getObject", "getArray" -> column(args);
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        }
+
+        private Object column(Object[] args) {
+            Object value = rows.get(row)[(Integer) args[0] - 1];
+            wasNull = (value == null);
+            return value;
+        }
+    }
+
+    /**
+     * Minimal text[] value. Like PgArray, getArray() returns a fresh copy on
+     * every call.
+     */
+    private record TextArray(String[] values) implements Array {
+
+        @Override
+        public String getBaseTypeName() {
+            return "text";
+        }
+
+        @Override
+        public int getBaseType() {
+            return Types.VARCHAR;
+        }
+
+        @Override
+        public Object getArray() {
+            return values.clone();
+        }
+
+        @Override
+        public Object getArray(Map<String, Class<?>> map) {
+            return getArray();
+        }
+
+        @Override
+        public Object getArray(long index, int count) {
+            String[] slice = new String[count];
+            System.arraycopy(values, (int) index - 1, slice, 0, count);
+            return slice;
+        }
+
+        @Override
+        public Object getArray(long index, int count, Map<String, Class<?>> map) {
+            return getArray(index, count);
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public ResultSet getResultSet(Map<String, Class<?>> map) throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public ResultSet getResultSet(long index, int count) throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public ResultSet getResultSet(long index, int count, Map<String, Class<?>> map)
+                throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+
+        @Override
+        public void free() {
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.dto.SearchResponseDTO;
+import com.guidescope.json.SearchJsonModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing a /search response body with Jackson, the last step of
+ * every uncached and cached search.
+ *
+ * - reflective: Jackson's default bean serializers over the Lombok getters
+ * - streaming: the hand-written SearchJsonModule serializers the application
+ * registers
+ *
+ * Both write to a discarding stream, as the MVC converter writes to the
+ * servlet output stream. Run with -prof gc and compare
+ * gc.alloc.rate.norm (bytes per response).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchResponseSerializationBenchmark {
+
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private JsonMapper reflectiveMapper;
+    private JsonMapper streamingMapper;
+    private SearchResponseDTO response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        reflectiveMapper = JsonMapper.builder().build();
+        streamingMapper = JsonMapper.builder().addModule(new SearchJsonModule()).build();
+        response = SearchFixtures.response(pageSize);
+    }
+
+    @Benchmark
+    public void reflective() {
+        reflectiveMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void streaming() {
+        streamingMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+}
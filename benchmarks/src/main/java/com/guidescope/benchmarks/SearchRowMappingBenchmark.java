@@ -0,0 +1,105 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.repository.SearchResultRowMapper;
+import com.guidescope.search.SearchField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per page of turning search rows (keywords as a java.sql.Array) into
+ * SearchResultDTOs.
+ *
+ * - objectRows: the previous path, Object[] rows from a native JPA query
+ * unpacked by position (the rows themselves are prebuilt here, so the
+ * Object[] allocation is not even counted)
+ * - rowMapper: SearchResultRowMapper reading the ResultSet directly, as
+ * SearchJdbcRepository does
+ *
+ * Run with -prof gc to see the allocation per page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchRowMappingBenchmark {
+
+    // Default page size and the maximum limit
+    @Param({ "20", "100" })
+    public int pageSize;
+
+    private List<Object[]> rows;
+    private SearchFixtures.RowsResultSet resultSet;
+    private SearchResultRowMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rows = SearchFixtures.rows(pageSize);
+        resultSet = SearchFixtures.resultSet(rows);
+        mapper = new SearchResultRowMapper(SearchField.ALL);
+    }
+
+    @Benchmark
+    public List<SearchResultDTO> objectRows() {
+        return rows.stream().map(SearchRowMappingBenchmark::toResult).toList();
+    }
+
+    @Benchmark
+    public List<SearchResultDTO> rowMapper() throws SQLException {
+        ResultSet rs = resultSet.rewind();
+        List<SearchResultDTO> page = new ArrayList<>(pageSize);
+        while (rs.next()) {
+            page.add(mapper.mapRow(rs, page.size()));
+        }
+        return page;
+    }
+
+    // The Object[] mapping PostgresSearchEngine used before SearchJdbcRepository
+    private static SearchResultDTO toResult(Object[] row) {
+        try {
+            String[] keywords = null;
+            if (row[10] != null) {
+                if (row[10] instanceof java.sql.Array javaArray) {
+                    keywords = (String[]) javaArray.getArray();
+                } else if (row[10] instanceof String[] strArray) {
+                    keywords = strArray;
+                }
+            }
+
+            return SearchResultDTO.builder()
+                    .id((UUID) row[0])
+                    .type((String) row[1])
+                    .region((String) row[2])
+                    .field((String) row[3])
+                    .title((String) row[4])
+                    .year((Integer) row[5])
+                    .link((String) row[6])
+                    .authors((String) row[7])
+                    .source((String) row[8])
+                    .citation((String) row[9])
+                    .keywords(keywords)
+                    .build();
+        } catch (Exception e) {
+            throw new RuntimeException("Error mapping search result", e);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.repository.SearchResultRowMapper;
+import com.guidescope.repository.SearchSql;
+import com.guidescope.search.NormalizedQuery;
+import com.guidescope.search.QueryNormalizer;
+import com.guidescope.search.SearchCriteria;
+import com.guidescope.search.SearchField;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one search page and one exact count per request shape, with the
+ * previous catch-all statement and with the SearchSql statement of the shape.
+ *
+ * Needs a PostgreSQL with the GuideScope schema (V4 indexes included) and a
+ * loaded catalogue; connection settings come from the system properties
+ * db.url, db.user and db.password (defaults match application.yml). The
+ * sample slug, title and filters are taken from a document in the middle of
+ * the table.
+ *
+ * Shapes:
+ * - text: prefix full-text query
+ * - exact: exact title match requested (no prefix query)
+ * - slug: slug only, no query
+ * - filter: type + region filters only
+ * - text-filter: prefix full-text query within a year range
+ *
+ * Run: java -Ddb.url=jdbc:postgresql://localhost:5432/postgres -jar benchmarks/target/benchmarks.jar SearchSqlShape
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchSqlShapeBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    // The statements SearchJdbcRepository and DocumentRepository used before SearchSql
+    private static final String CATCH_ALL_SCORE = """
+            CAST(CASE
+              WHEN CAST(:slug AS text) IS NOT NULL AND slug = CAST(:slug AS text) THEN 1000.0
+              WHEN lower(title) = lower(CAST(:query AS text)) THEN 100.0
+              WHEN (CAST(:query AS text) IS NULL OR :query = '') THEN 0
+              ELSE (
+                COALESCE(ts_rank(search_vector, websearch_to_tsquery('english', :query)), 0) * 2 +
+                COALESCE(ts_rank(search_vector, to_tsquery('english', :prefixQuery)), 0)
+              )
+            END AS double precision)""";
+
+    private static final String CATCH_ALL_MATCHES = """
+            (
+              (CAST(:slug AS text) IS NOT NULL AND slug = CAST(:slug AS text))
+              OR
+              (
+                CAST(:query AS text) IS NULL OR :query = ''
+                OR lower(title) = lower(CAST(:query AS text))
+                OR search_vector @@ websearch_to_tsquery('english', :query)
+                OR search_vector @@ to_tsquery('english', :prefixQuery)
+              )
+            )
+            AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
+            AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
+            AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
+            AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
+            AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))""";
+
+    private static final String CATCH_ALL_ORDER = """
+            ORDER BY
+              CASE WHEN (CAST(:query AS text) IS NULL OR :query = '') THEN 0 ELSE 1 END DESC,
+              score DESC,
+              year DESC,
+              id""";
+
+    @Param({ "text", "exact", "slug", "filter", "text-filter" })
+    public String shape;
+
+    @Param({ "catchAll", "specialized" })
+    public String statement;
+
+    private HikariDataSource dataSource;
+    private NamedParameterJdbcTemplate jdbc;
+    private SearchResultRowMapper mapper;
+    private MapSqlParameterSource parameters;
+    private String pageSql;
+    private String countSql;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("db.url", "jdbc:postgresql://localhost:5432/postgres?prepareThreshold=0"));
+        config.setUsername(System.getProperty("db.user", "postgres"));
+        config.setPassword(System.getProperty("db.password", "password"));
+        config.setMaximumPoolSize(2);
+        dataSource = new HikariDataSource(config);
+        jdbc = new NamedParameterJdbcTemplate(dataSource);
+
+        Map<String, Object> sample = jdbc.getJdbcTemplate().queryForMap("""
+                SELECT title, slug, type, region, year FROM documents
+                ORDER BY id OFFSET (SELECT COUNT(*) / 2 FROM documents) LIMIT 1""");
+        String title = (String) sample.get("title");
+        int year = ((Number) sample.get("year")).intValue();
+
+        SearchCriteria criteria = switch (shape) {
+            case "text" -> text(firstWords(title, 2), false).build();
+            case "exact" -> text(title, true).build();
+            case "slug" -> SearchCriteria.builder().query("").prefixQuery("").slug((String) sample.get("slug")).build();
+            case "filter" -> SearchCriteria.builder().query("").prefixQuery("")
+                    .types(new String[] { (String) sample.get("type") })
+                    .region((String) sample.get("region"))
+                    .build();
+            case "text-filter" -> text(firstWords(title, 1), false).yearFrom(year - 5).yearTo(year).build();
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+
+        mapper = new SearchResultRowMapper(SearchField.ALL);
+        parameters = parameters(criteria);
+        if ("catchAll".equals(statement)) {
+            pageSql = "SELECT " + mapper.columns() + ",\n" + CATCH_ALL_SCORE + " AS score,\nyear AS sort_year\n"
+                    + "FROM documents\nWHERE\n" + CATCH_ALL_MATCHES + "\n" + CATCH_ALL_ORDER
+                    + "\nLIMIT :limit OFFSET :offset";
+            countSql = "SELECT COUNT(*) FROM documents WHERE\n" + CATCH_ALL_MATCHES;
+        } else {
+            SearchSql sql = SearchSql.of(SearchSql.shapeOf(criteria));
+            pageSql = sql.page(mapper.columns());
+            countSql = sql.count();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<SearchResultDTO> page() {
+        return jdbc.query(pageSql, parameters, mapper);
+    }
+
+    @Benchmark
+    public Long count() {
+        return jdbc.queryForObject(countSql, parameters, Long.class);
+    }
+
+    private static SearchCriteria.SearchCriteriaBuilder text(String query, boolean exact) {
+        NormalizedQuery normalized = QueryNormalizer.normalize(query, !exact);
+        return SearchCriteria.builder()
+                .query(query)
+                .normalizedQuery(normalized.getNormalized())
+                .prefixQuery(normalized.getPrefixQuery())
+                .tokens(normalized.getTokens())
+                .exact(exact);
+    }
+
+    private static String firstWords(String text, int words) {
+        List<String> tokens = QueryNormalizer.tokenize(text);
+        return String.join(" ", tokens.subList(0, Math.min(words, tokens.size())));
+    }
+
+    // Same bindings as SearchJdbcRepository
+    private static MapSqlParameterSource parameters(SearchCriteria criteria) {
+        String[] types = criteria.getTypes();
+        return new MapSqlParameterSource()
+                .addValue("query", criteria.getQuery(), Types.VARCHAR)
+                .addValue("prefixQuery", criteria.getPrefixQuery(), Types.VARCHAR)
+                .addValue("slug", criteria.getSlug(), Types.VARCHAR)
+                .addValue("types", (types != null) ? new AbstractSqlTypeValue() {
+                    @Override
+                    protected Object createTypeValue(Connection connection, int sqlType, String typeName)
+                            throws SQLException {
+                        return connection.createArrayOf("text", types);
+                    }
+                } : null, Types.ARRAY)
+                .addValue("region", criteria.getRegion(), Types.VARCHAR)
+                .addValue("field", criteria.getField(), Types.VARCHAR)
+                .addValue("year_from", criteria.getYearFrom(), Types.INTEGER)
+                .addValue("year_to", criteria.getYearTo(), Types.INTEGER)
+                .addValue("limit", PAGE_SIZE, Types.INTEGER)
+                .addValue("offset", 0L, Types.BIGINT);
+    }
+}
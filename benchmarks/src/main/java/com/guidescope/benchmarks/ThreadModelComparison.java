@@ -0,0 +1,185 @@
+package com.guidescope.benchmarks;
+
+import com.guidescope.jdbc.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Compares request execution models against a Hikari pool of the production
+ * size (20) under a burst.
+ *
+ * Each simulated request does a little CPU work, checks out a connection,
+ * holds it for a "query" of queryMillis and returns it. The connections are
+ * in-memory stubs, so the numbers isolate thread scheduling and pool
+ * contention from PostgreSQL itself.
+ *
+ * Models:
+ * - platform: a fixed pool of 200 platform threads (Tomcat's default maximum)
+ * - virtual: one virtual thread per request, straight on Hikari
+ * - virtual+limiter: one virtual thread per request, through
+ * ConnectionLimitingDataSource sized to the pool
+ *
+ * Run: java -cp benchmarks/target/benchmarks.jar com.guidescope.benchmarks.ThreadModelComparison [requests] [queryMillis]
+ */
+public class ThreadModelComparison {
+
+    private static final int POOL_SIZE = 20;
+    private static final int PLATFORM_THREADS = 200;
+    private static final long CPU_WORK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    public static void main(String[] args) throws Exception {
+        int requests = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000;
+        long queryMillis = (args.length > 1) ? Long.parseLong(args[1]) : 2;
+
+        System.out.printf("%d requests, %dms per query, pool of %d%n", requests, queryMillis, POOL_SIZE);
+        System.out.printf("%-16s %12s %10s %10s %10s %8s%n", "model", "req/s", "p50 ms", "p99 ms", "max ms", "failed");
+
+        for (int round = 0; round < 2; round++) {
+            // The first round is warm-up and is not printed
+            boolean print = round == 1;
+            try (HikariDataSource pool = pool()) {
+                run("platform", Executors.newFixedThreadPool(PLATFORM_THREADS), pool, requests, queryMillis, print);
+            }
+            try (HikariDataSource pool = pool()) {
+                run("virtual", Executors.newVirtualThreadPerTaskExecutor(), pool, requests, queryMillis, print);
+            }
+            try (HikariDataSource pool = pool()) {
+                DataSource limited = new ConnectionLimitingDataSource(pool, POOL_SIZE, Duration.ofSeconds(30));
+                run("virtual+limiter", Executors.newVirtualThreadPerTaskExecutor(), limited, requests, queryMillis,
+                        print);
+            }
+        }
+    }
+
+    private static void run(String model, ExecutorService executor, DataSource dataSource, int requests,
+            long queryMillis, boolean print) throws Exception {
+        long[] latencies = new long[requests];
+        AtomicInteger failed = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>(requests);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            int request = i;
+            long submitted = System.nanoTime();
+            futures.add(executor.submit(() -> {
+                spin(CPU_WORK_NANOS);
+                try (Connection connection = dataSource.getConnection()) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(queryMillis));
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                }
+                latencies[request] = System.nanoTime() - submitted;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        if (print) {
+            Arrays.sort(latencies);
+            System.out.printf("%-16s %12.0f %10.1f %10.1f %10.1f %8d%n", model,
+                    requests * 1e9 / elapsed,
+                    latencies[requests / 2] / 1e6,
+                    latencies[(int) (requests * 0.99)] / 1e6,
+                    latencies[requests - 1] / 1e6,
+                    failed.get());
+        }
+    }
+
+    private static void spin(long nanos) {
+        long end = System.nanoTime() + nanos;
+        while (System.nanoTime() < end) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static HikariDataSource pool() {
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(new StubDataSource());
+        config.setMaximumPoolSize(POOL_SIZE);
+        config.setMinimumIdle(POOL_SIZE);
+        config.setConnectionTimeout(30_000);
+        config.setPoolName("comparison");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Hands out in-memory connections that accept every call.
+     */
+    private static final class StubDataSource implements DataSource {
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                        Class<?> type = method.getReturnType();
+                        if (type == boolean.class) {
+                            // isValid(), getAutoCommit()
+                            return !method.getName().equals("isReadOnly") && !method.getName().equals("isClosed");
+                        }
+                        if (type == int.class) {
+                            return method.getName().equals("getTransactionIsolation")
+                                    ? Connection.TRANSACTION_READ_COMMITTED
+                                    : 0;
+                        }
+                        return null;
+                    });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) {
+            return null;
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
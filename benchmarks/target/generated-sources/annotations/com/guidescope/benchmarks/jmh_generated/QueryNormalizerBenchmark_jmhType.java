@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class QueryNormalizerBenchmark_jmhType extends QueryNormalizerBenchmark_jmhType_B3 {
+}
+
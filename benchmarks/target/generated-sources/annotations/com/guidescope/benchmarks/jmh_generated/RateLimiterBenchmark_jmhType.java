@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class RateLimiterBenchmark_jmhType extends RateLimiterBenchmark_jmhType_B3 {
+}
+
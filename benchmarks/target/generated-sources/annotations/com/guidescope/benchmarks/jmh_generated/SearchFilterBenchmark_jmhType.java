@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class SearchFilterBenchmark_jmhType extends SearchFilterBenchmark_jmhType_B3 {
+}
+
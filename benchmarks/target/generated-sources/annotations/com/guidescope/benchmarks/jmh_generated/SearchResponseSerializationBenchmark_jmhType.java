@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class SearchResponseSerializationBenchmark_jmhType extends SearchResponseSerializationBenchmark_jmhType_B3 {
+}
+
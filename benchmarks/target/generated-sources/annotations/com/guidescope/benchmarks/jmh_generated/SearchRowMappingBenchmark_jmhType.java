@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class SearchRowMappingBenchmark_jmhType extends SearchRowMappingBenchmark_jmhType_B3 {
+}
+
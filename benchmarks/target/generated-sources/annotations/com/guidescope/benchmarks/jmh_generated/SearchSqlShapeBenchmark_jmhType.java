@@ -0,0 +1,4 @@
+package com.guidescope.benchmarks.jmh_generated;
+public class SearchSqlShapeBenchmark_jmhType extends SearchSqlShapeBenchmark_jmhType_B3 {
+}
+
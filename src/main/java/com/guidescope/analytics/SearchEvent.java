@@ -0,0 +1,28 @@
+package com.guidescope.analytics;
+
+import lombok.Value;
+
+/**
+ * SearchEvent is the compact record of one /search* request, published by
+ * SearchRequestLoggingFilter and written to the search event log.
+ */
+@Value
+public class SearchEvent {
+
+    // Request attribute carrying the result count from the controller layer to the filter
+    public static final String RESULTS_ATTRIBUTE = SearchEvent.class.getName() + ".results";
+
+    long timestamp;
+    String path;
+    String query;
+    String[] types;
+    String region;
+    String field;
+    String yearFrom;
+    String yearTo;
+    String slug;
+    int status;
+    long durationMillis;
+    // Total matches (or suggestions); null when the endpoint did not report one
+    Long results;
+}
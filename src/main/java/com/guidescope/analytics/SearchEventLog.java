@@ -0,0 +1,167 @@
+package com.guidescope.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SearchEventLog collects search events off the request path and appends them
+ * to a local NDJSON data set for query analytics.
+ *
+ * Pipeline:
+ * - publish() puts the event into a lock-free SearchEventRing; when the ring is
+ * full the event is dropped (counted as search.events.dropped) rather than
+ * slowing the request
+ * - A scheduled consumer drains the ring every app.search-events.flush-interval
+ * and appends the batch to app.search-events.directory/search-events-YYYY-MM-DD.ndjson
+ * (UTC), one JSON object per line, then hands it to SuggestionPopularity
+ * - Remaining events are written on shutdown
+ */
+@Component
+@Slf4j
+public class SearchEventLog {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final SearchEventRing ring;
+    private final Counter dropped;
+    private final Counter written;
+    private final SuggestionPopularity suggestionPopularity;
+
+    public SearchEventLog(
+            @Value("${app.search-events.enabled:true}") boolean enabled,
+            @Value("${app.search-events.directory:logs}") String directory,
+            @Value("${app.search-events.buffer-size:8192}") int bufferSize,
+            MeterRegistry meterRegistry,
+            SuggestionPopularity suggestionPopularity) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.ring = new SearchEventRing(bufferSize);
+        this.dropped = meterRegistry.counter("search.events.dropped");
+        this.written = meterRegistry.counter("search.events.written");
+        this.suggestionPopularity = suggestionPopularity;
+        meterRegistry.gauge("search.events.pending", ring, SearchEventRing::size);
+    }
+
+    /**
+     * Hands the event to the background consumer. Never blocks.
+     */
+    public void publish(SearchEvent event) {
+        if (enabled && !ring.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.search-events.flush-interval:1s}")
+    public synchronized void flush() {
+        List<SearchEvent> batch = new ArrayList<>();
+        while (ring.drainTo(batch, BATCH_SIZE) > 0) {
+            write(batch);
+            if (suggestionPopularity != null) {
+                suggestionPopularity.record(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<SearchEvent> batch) {
+        // Events are bucketed by the day they are written, which is at most one flush interval late
+        Path file = directory.resolve("search-events-" + LocalDate.now(ZoneOffset.UTC) + ".ndjson");
+        StringBuilder line = new StringBuilder(256);
+        try {
+            Files.createDirectories(directory);
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (SearchEvent event : batch) {
+                    line.setLength(0);
+                    appendJson(line, event);
+                    writer.append(line).append('\n');
+                }
+            }
+            written.increment(batch.size());
+        } catch (IOException e) {
+            // Analytics must never take the service down: count the batch as lost
+            dropped.increment(batch.size());
+            log.error("Failed to write {} search events to {}: {}", batch.size(), file, e.getMessage());
+        }
+    }
+
+    static void appendJson(StringBuilder out, SearchEvent event) {
+        out.append("{\"ts\":\"").append(Instant.ofEpochMilli(event.getTimestamp())).append('"');
+        field(out, "path", event.getPath());
+        field(out, "q", event.getQuery());
+        if (event.getTypes() != null) {
+            out.append(",\"type\":[");
+            for (int i = 0; i < event.getTypes().length; i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                string(out, event.getTypes()[i]);
+            }
+            out.append(']');
+        }
+        field(out, "region", event.getRegion());
+        field(out, "field", event.getField());
+        field(out, "year_from", event.getYearFrom());
+        field(out, "year_to", event.getYearTo());
+        field(out, "slug", event.getSlug());
+        out.append(",\"status\":").append(event.getStatus());
+        out.append(",\"duration_ms\":").append(event.getDurationMillis());
+        if (event.getResults() != null) {
+            out.append(",\"results\":").append(event.getResults().longValue());
+        }
+        out.append('}');
+    }
+
+    private static void field(StringBuilder out, String name, String value) {
+        if (value != null) {
+            out.append(",\"").append(name).append("\":");
+            string(out, value);
+        }
+    }
+
+    private static void string(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,56 @@
+package com.guidescope.analytics;
+
+import com.guidescope.controller.SearchController;
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResponseDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * SearchEventResultAdvice records the result count of SearchController
+ * responses as a request attribute, so the search event published by
+ * SearchRequestLoggingFilter can carry it without the service layer knowing
+ * about analytics.
+ */
+@ControllerAdvice(assignableTypes = SearchController.class)
+public class SearchEventResultAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        Long results = resultCount(body);
+        if (results != null && request instanceof ServletServerHttpRequest servletRequest) {
+            servletRequest.getServletRequest().setAttribute(SearchEvent.RESULTS_ATTRIBUTE, results);
+        }
+        return body;
+    }
+
+    /**
+     * Total matches (or suggestions) reported by a SearchController response
+     * body; null for other bodies.
+     */
+    public static Long resultCount(Object body) {
+        if (body instanceof SearchResponseDTO search) {
+            return (search.getTotal() != null) ? search.getTotal()
+                    : (search.getResults() != null) ? Long.valueOf(search.getResults().size()) : null;
+        } else if (body instanceof AutocompleteResponseDTO autocomplete && autocomplete.getSuggestions() != null) {
+            return (long) autocomplete.getSuggestions().size();
+        } else if (body instanceof SearchFacetsDTO facets) {
+            return facets.getTotal();
+        }
+        return null;
+    }
+}
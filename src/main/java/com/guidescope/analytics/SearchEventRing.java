@@ -0,0 +1,72 @@
+package com.guidescope.analytics;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * SearchEventRing is a bounded, lock-free multi-producer / single-consumer
+ * ring buffer.
+ *
+ * - Producers claim a slot with one CAS on the tail and never block: when the
+ * ring is full, offer() returns false and the event is dropped
+ * - A slot becomes visible to the consumer only once its event is stored
+ * (release/acquire on the slot), so a claimed-but-unwritten slot simply ends
+ * the current drain
+ * - drainTo() must only be called from one thread at a time
+ */
+final class SearchEventRing {
+
+    private final AtomicReferenceArray<SearchEvent> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    SearchEventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(SearchEvent event) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.setRelease((int) claimed & mask, event);
+        return true;
+    }
+
+    /**
+     * Moves up to max published events into the target list.
+     *
+     * @return the number of events moved
+     */
+    int drainTo(List<SearchEvent> target, int max) {
+        long next = head.get();
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) next & mask;
+            SearchEvent event = slots.getAcquire(slot);
+            if (event == null) {
+                break;
+            }
+            slots.setRelease(slot, null);
+            target.add(event);
+            next++;
+            drained++;
+            // Frees the slot for producers
+            head.setRelease(next);
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+}
@@ -0,0 +1,73 @@
+package com.guidescope.analytics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SuggestionPopularity feeds the popularity column of autocomplete_suggestions
+ * from the search event log.
+ *
+ * Characteristics:
+ * - A successful /search with a slug is a selected suggestion: every phrase of
+ * the documents with that slug gains one point
+ * - Events are aggregated per batch, so a flush issues one batched UPDATE with
+ * one row per distinct slug
+ * - Runs on the SearchEventLog consumer thread; failures are logged and the
+ * batch's points are lost, requests are never affected
+ */
+@Component
+@Slf4j
+public class SuggestionPopularity {
+
+    private static final String SEARCH_PATH = "/search";
+
+    private static final String UPDATE = "UPDATE autocomplete_suggestions SET popularity = popularity + ? WHERE slug = ?";
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final Counter recorded;
+
+    public SuggestionPopularity(
+            @Value("${app.autocomplete.popularity.enabled:true}") boolean enabled,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.recorded = meterRegistry.counter("autocomplete.popularity.recorded");
+    }
+
+    public void record(List<SearchEvent> batch) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Integer> selections = new HashMap<>();
+        for (SearchEvent event : batch) {
+            if (event.getStatus() == 200 && SEARCH_PATH.equals(event.getPath())
+                    && event.getSlug() != null && !event.getSlug().isBlank()) {
+                selections.merge(event.getSlug(), 1, Integer::sum);
+            }
+        }
+        if (selections.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(selections.size());
+        selections.forEach((slug, count) -> rows.add(new Object[] { count, slug }));
+        try {
+            jdbcTemplate.batchUpdate(UPDATE, rows);
+            recorded.increment(rows.size());
+        } catch (DataAccessException e) {
+            log.error("Failed to update popularity of {} suggestions: {}", rows.size(), e.getMessage());
+        }
+    }
+}
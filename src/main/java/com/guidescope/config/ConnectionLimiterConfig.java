@@ -0,0 +1,65 @@
+package com.guidescope.config;
+
+import com.guidescope.jdbc.ConnectionLimitingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * ConnectionLimiterConfig wraps the Hikari pool in a
+ * ConnectionLimitingDataSource sized to maximum-pool-size.
+ *
+ * Enabled with app.datasource.limiter.enabled, which defaults to on when MVC
+ * requests run on virtual threads (spring.threads.virtual.enabled).
+ *
+ * Waiting for a permit happens before Hikari is asked for a connection, so it
+ * is published separately from hikaricp.connections.acquire, as the
+ * datasource.limiter.wait timer.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.limiter.enabled", havingValue = "true")
+@Slf4j
+public class ConnectionLimiterConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimiterPostProcessor(
+            @Value("${app.datasource.limiter.acquire-timeout:5s}") Duration acquireTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    return limit(hikari, beanName, acquireTimeout, meterRegistry.getIfAvailable());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Wraps one pool in a ConnectionLimitingDataSource sized to its
+     * maximum-pool-size; also used for the replica pools (ReadReplicaConfig).
+     */
+    static ConnectionLimitingDataSource limit(HikariDataSource hikari, String name, Duration acquireTimeout,
+            MeterRegistry registry) {
+        int limit = hikari.getMaximumPoolSize();
+        log.info("Limiting concurrent connection checkouts on {} to {} (acquire timeout {})",
+                name, limit, acquireTimeout);
+        Timer waitTimer = (registry != null) ? Timer.builder("datasource.limiter.wait")
+                .description("Time spent waiting for a connection permit")
+                .tag("pool", name)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry) : null;
+        return new ConnectionLimitingDataSource(hikari, limit, acquireTimeout, waitTimer);
+    }
+}
@@ -0,0 +1,42 @@
+package com.guidescope.config;
+
+import com.guidescope.controller.SearchController;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * CorpusETagAdvice adds the validators prepared by CorpusETagInterceptor to
+ * SearchController bodies once the handler has succeeded. Exception handler
+ * responses do not pass through it.
+ */
+@ControllerAdvice(assignableTypes = SearchController.class)
+@RequiredArgsConstructor
+public class CorpusETagAdvice implements ResponseBodyAdvice<Object> {
+
+    private final CorpusETagInterceptor corpusETagInterceptor;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && response instanceof ServletServerHttpResponse servletResponse) {
+            corpusETagInterceptor.applyValidators(servletRequest.getServletRequest(),
+                    servletResponse.getServletResponse());
+        }
+        return body;
+    }
+}
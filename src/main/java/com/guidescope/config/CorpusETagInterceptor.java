@@ -0,0 +1,137 @@
+package com.guidescope.config;
+
+import com.guidescope.service.CorpusVersionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.info.BuildProperties;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Enumeration;
+
+/**
+ * CorpusETagInterceptor makes the read-only search endpoints conditionally
+ * cacheable.
+ *
+ * Every /search response is fully determined by the request URL, the corpus
+ * version and the build that serialized it, so those two are used as a
+ * strong ETag ("c<version>-<build>"):
+ * - A matching If-None-Match is answered with 304 before the controller runs,
+ * so neither SearchService nor the repository is touched
+ * - Otherwise the ETag is left in a request attribute; applyValidators adds it
+ * with a public Cache-Control (app.http.cache.max-age) to successful
+ * responses only (CorpusETagAdvice, or ResponseCacheInterceptor on a hit), so
+ * errors and rate-limit rejections are never marked cacheable
+ * - The build part comes from META-INF/build-info.properties (version and
+ * build time), so a deploy that changes the response format never revalidates
+ * against tags of the previous build
+ * - A gzip body served by ResponseCacheInterceptor is a different
+ * representation and gets its own tag ("c<version>-<build>-gz"); both tags
+ * revalidate, and Vary: Accept-Encoding goes with every validator
+ * - Until the corpus version is known, no validator is emitted
+ */
+@Component
+public class CorpusETagInterceptor implements HandlerInterceptor {
+
+    public static final String ETAG_ATTRIBUTE = CorpusETagInterceptor.class.getName() + ".etag";
+
+    private static final String GZIP_SUFFIX = "-gz";
+
+    private final CorpusVersionService corpusVersionService;
+    private final String build;
+    private final String cacheControl;
+
+    public CorpusETagInterceptor(CorpusVersionService corpusVersionService,
+            ObjectProvider<BuildProperties> buildProperties,
+            @Value("${app.http.cache.max-age:60s}") Duration maxAge) {
+        this.corpusVersionService = corpusVersionService;
+        BuildProperties properties = buildProperties.getIfAvailable();
+        this.build = (properties != null && properties.getTime() != null)
+                ? properties.getVersion() + "." + Long.toString(properties.getTime().getEpochSecond(), 36)
+                : "dev";
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().getHeaderValue();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return true;
+        }
+        long version = corpusVersionService.currentVersion();
+        if (version < 0) {
+            return true;
+        }
+
+        String etag = "\"c" + version + "-" + build + "\"";
+        String matched = null;
+        if (matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), etag)) {
+            matched = etag;
+        } else if (ResponseCacheInterceptor.acceptsGzip(request)
+                && matches(request.getHeaders(HttpHeaders.IF_NONE_MATCH), gzipTag(etag))) {
+            matched = gzipTag(etag);
+        }
+        if (matched != null) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            setValidators(response, matched);
+            return false;
+        }
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+        return true;
+    }
+
+    /**
+     * Adds the ETag and Cache-Control of the request's corpus version when the
+     * response status is 2xx.
+     */
+    public void applyValidators(HttpServletRequest request, HttpServletResponse response) {
+        applyValidators(request, response, false);
+    }
+
+    /**
+     * applyValidators for a body that is sent gzip-encoded (gzip true) or
+     * as is.
+     */
+    public void applyValidators(HttpServletRequest request, HttpServletResponse response, boolean gzip) {
+        int status = response.getStatus();
+        if (request.getAttribute(ETAG_ATTRIBUTE) instanceof String etag && status >= 200 && status < 300) {
+            setValidators(response, gzip ? gzipTag(etag) : etag);
+        }
+    }
+
+    private void setValidators(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    /**
+     * The tag of the gzip representation: the quoted tag with "-gz" appended
+     * inside the quotes.
+     */
+    static String gzipTag(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    /**
+     * If-None-Match comparison: weak, over every listed tag, "*" matching any.
+     */
+    static boolean matches(Enumeration<String> ifNoneMatch, String etag) {
+        while (ifNoneMatch != null && ifNoneMatch.hasMoreElements()) {
+            for (String candidate : ifNoneMatch.nextElement().split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if ("*".equals(tag) || etag.equals(tag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,54 @@
+package com.guidescope.config;
+
+import com.guidescope.service.DocumentIngestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * DocumentIngestRunner exposes DocumentIngestService as a one-shot command.
+ *
+ * Usage (the web server is not needed for a load):
+ * java -jar app.jar --spring.main.web-application-type=none --ingest=catalogue.csv [--ingest=more.ndjson]
+ *
+ * The application exits once every file has been loaded, with status 1 if any
+ * load failed. Without --ingest this runner does nothing.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentIngestRunner implements ApplicationRunner {
+
+    private static final String INGEST_OPTION = "ingest";
+
+    private final DocumentIngestService documentIngestService;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> files = args.getOptionValues(INGEST_OPTION);
+        if (files == null || files.isEmpty()) {
+            return;
+        }
+
+        int exitCode = 0;
+        for (String file : files) {
+            try {
+                documentIngestService.ingest(Path.of(file));
+            } catch (Exception e) {
+                log.error("Ingest of {} failed, nothing was loaded from it: {}", file, e.getMessage(), e);
+                exitCode = 1;
+            }
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
@@ -0,0 +1,25 @@
+package com.guidescope.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class HttpCachingConfig implements WebMvcConfigurer {
+
+    private final CorpusETagInterceptor corpusETagInterceptor;
+    private final ResponseCacheInterceptor responseCacheInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Exports are large one-off streams: no ETag, no 304 and no shared caching
+        registry.addInterceptor(corpusETagInterceptor)
+                .addPathPatterns("/search", "/search/**")
+                .excludePathPatterns("/search/export");
+        // After the ETag check, so a matching If-None-Match still gets its 304
+        registry.addInterceptor(responseCacheInterceptor)
+                .addPathPatterns("/search", "/search/capabilities", "/search/facets", "/search/autocomplete");
+    }
+}
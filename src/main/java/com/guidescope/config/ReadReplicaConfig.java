@@ -0,0 +1,164 @@
+package com.guidescope.config;
+
+import com.guidescope.jdbc.ReplicaRoutingDataSource;
+import com.guidescope.service.CorpusChangedEvent;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ReadReplicaConfig replaces the primary Hikari pool with a
+ * ReplicaRoutingDataSource: read-only transactions (every search,
+ * autocomplete, facet and export path) go to the replica pools listed under
+ * app.datasource.replicas.pools, everything else (ingest, Flyway, stats
+ * writes, corpus version polls) stays on the primary.
+ *
+ * Characteristics:
+ * - Each replica gets its own Hikari pool with the primary's timeouts and its
+ * own maximum-pool-size (default: the primary's); its connections are
+ * read-only
+ * - With app.datasource.limiter.enabled every pool, primary and replicas, is
+ * wrapped in its own ConnectionLimitingDataSource here, since the limiter's
+ * post-processor only sees the routing data source
+ * - The routing data source is told about every corpus change before the
+ * in-memory engines rebuild from it, so the rebuild reads from the primary
+ * until a replica has replayed the change
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas.enabled", havingValue = "true")
+@Slf4j
+public class ReadReplicaConfig {
+
+    private final ObjectProvider<DataSource> dataSource;
+
+    public ReadReplicaConfig(ObjectProvider<DataSource> dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // Ordered, so it runs before ConnectionLimiterConfig's post-processor
+    @Bean
+    public static BeanPostProcessor readReplicaPostProcessor(
+            Environment environment,
+            @Value("${app.datasource.replicas.max-lag:5s}") Duration maxLag,
+            @Value("${app.datasource.replicas.check-interval:5s}") Duration checkInterval,
+            @Value("${app.datasource.limiter.enabled:false}") boolean limiterEnabled,
+            @Value("${app.datasource.limiter.acquire-timeout:5s}") Duration acquireTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new RoutingPostProcessor(environment, maxLag, checkInterval,
+                limiterEnabled ? acquireTimeout : null, meterRegistry);
+    }
+
+    // Before the in-memory engines rebuild (order 0) and the caches are dropped
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onCorpusChanged(CorpusChangedEvent event) {
+        if (dataSource.getIfAvailable() instanceof ReplicaRoutingDataSource routing) {
+            routing.requireVersion(event.getVersion());
+        }
+    }
+
+    /**
+     * One entry of app.datasource.replicas.pools; unset credentials and pool
+     * size are taken from the primary.
+     */
+    public record ReplicaPool(String name, String url, String username, String password, Integer maximumPoolSize) {
+    }
+
+    private static final class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final Environment environment;
+        private final Duration maxLag;
+        private final Duration checkInterval;
+        private final Duration acquireTimeout;
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+        RoutingPostProcessor(Environment environment, Duration maxLag, Duration checkInterval,
+                Duration acquireTimeout, ObjectProvider<MeterRegistry> meterRegistry) {
+            this.environment = environment;
+            this.maxLag = maxLag;
+            this.checkInterval = checkInterval;
+            this.acquireTimeout = acquireTimeout;
+            this.meterRegistry = meterRegistry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource primary)) {
+                return bean;
+            }
+            List<ReplicaPool> pools = Binder.get(environment)
+                    .bind("app.datasource.replicas.pools", Bindable.listOf(ReplicaPool.class))
+                    .orElse(List.of());
+            if (pools.isEmpty()) {
+                log.warn("Read replicas enabled but app.datasource.replicas.pools is empty; using {} for all reads",
+                        beanName);
+                return bean;
+            }
+
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>(pools.size());
+            for (int i = 0; i < pools.size(); i++) {
+                ReplicaPool pool = pools.get(i);
+                String name = (pool.name() != null) ? pool.name() : "replica-" + (i + 1);
+                HikariDataSource hikari = replicaPool(primary, pool, name, registry);
+                replicas.add(new ReplicaRoutingDataSource.Replica(name, limited(hikari, name, registry), hikari));
+                log.info("Read replica {}: {} (pool size {})", name, pool.url(), hikari.getMaximumPoolSize());
+            }
+            return new ReplicaRoutingDataSource(limited(primary, beanName, registry), primary, replicas, maxLag,
+                    checkInterval, registry);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+
+        private DataSource limited(HikariDataSource hikari, String name, MeterRegistry registry) {
+            return (acquireTimeout != null)
+                    ? ConnectionLimiterConfig.limit(hikari, name, acquireTimeout, registry)
+                    : hikari;
+        }
+
+        private static HikariDataSource replicaPool(HikariDataSource primary, ReplicaPool pool, String name,
+                MeterRegistry registry) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(pool.url());
+            config.setUsername((pool.username() != null) ? pool.username() : primary.getUsername());
+            config.setPassword((pool.password() != null) ? pool.password() : primary.getPassword());
+            config.setDriverClassName(primary.getDriverClassName());
+            int size = (pool.maximumPoolSize() != null) ? pool.maximumPoolSize() : primary.getMaximumPoolSize();
+            config.setMaximumPoolSize(size);
+            config.setMinimumIdle(Math.min(primary.getMinimumIdle(), size));
+            config.setConnectionTimeout(primary.getConnectionTimeout());
+            config.setIdleTimeout(primary.getIdleTimeout());
+            config.setMaxLifetime(primary.getMaxLifetime());
+            config.setKeepaliveTime(primary.getKeepaliveTime());
+            config.setReadOnly(true);
+            // A replica that is down at startup is only skipped, it does not stop the application
+            config.setInitializationFailTimeout(-1);
+            if (registry != null) {
+                config.setMetricRegistry(registry);
+            }
+            return new HikariDataSource(config);
+        }
+    }
+}
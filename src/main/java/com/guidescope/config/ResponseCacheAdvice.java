@@ -0,0 +1,67 @@
+package com.guidescope.config;
+
+import com.guidescope.analytics.SearchEventResultAdvice;
+import com.guidescope.controller.SearchController;
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.dto.SearchCapabilitiesDTO;
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResponseDTO;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import org.springframework.web.util.WebUtils;
+
+/**
+ * ResponseCacheAdvice has SearchController response bodies stored in the
+ * CompressedResponseCache when ResponseCacheInterceptor missed a request
+ * the cache admitted (a request seen before).
+ *
+ * Only complete 200 JSON bodies are stored; a search whose total is
+ * approximate (the count timed out) is served but not cached, so the exact
+ * total can be returned once it is known. The body is not serialized here:
+ * ResponseCaptureFilter copies the bytes the message converter writes, so
+ * the stored body is byte for byte what was sent and is serialized (and
+ * timed as the "serialize" stage) once.
+ */
+@ControllerAdvice(assignableTypes = SearchController.class)
+public class ResponseCacheAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)
+                || !(response instanceof ServletServerHttpResponse servletResponse)) {
+            return body;
+        }
+        Object key = servletRequest.getServletRequest().getAttribute(ResponseCacheInterceptor.KEY_ATTRIBUTE);
+        if (key instanceof String cacheKey && servletResponse.getServletResponse().getStatus() == 200
+                && MediaType.APPLICATION_JSON.isCompatibleWith(selectedContentType) && cacheable(body)) {
+            ResponseCaptureFilter.CapturingResponse capturing = WebUtils.getNativeResponse(
+                    servletResponse.getServletResponse(), ResponseCaptureFilter.CapturingResponse.class);
+            if (capturing != null) {
+                capturing.capture(cacheKey, SearchEventResultAdvice.resultCount(body));
+            }
+        }
+        return body;
+    }
+
+    private static boolean cacheable(Object body) {
+        if (body instanceof SearchResponseDTO search) {
+            return !Boolean.TRUE.equals(search.getTotalApproximate());
+        }
+        return body instanceof SearchFacetsDTO || body instanceof AutocompleteResponseDTO
+                || body instanceof SearchCapabilitiesDTO;
+    }
+}
@@ -0,0 +1,129 @@
+package com.guidescope.config;
+
+import com.guidescope.analytics.SearchEvent;
+import com.guidescope.service.CompressedResponseCache;
+import com.guidescope.service.CorpusVersionService;
+import com.guidescope.service.SystemStatsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Enumeration;
+import java.util.Locale;
+
+/**
+ * ResponseCacheInterceptor answers repeated search requests from the
+ * CompressedResponseCache without running the controller.
+ *
+ * Characteristics:
+ * - Runs after CorpusETagInterceptor, so CORS and 304 handling are unchanged;
+ * only full 200 bodies come from the cache, with the validators a controller
+ * response gets
+ * - Sends the gzip body with Content-Encoding: gzip (and the gzip ETag) when
+ * Accept-Encoding allows it, the plain body otherwise
+ * - Bodies are written straight from their off-heap buffers
+ * - Entries are keyed on the normalized request (see ResponseCacheKeys), not
+ * the raw query string; requests without a key are passed through
+ * - On a miss of a request seen before (see CompressedResponseCache.admit)
+ * the cache key is left in a request attribute for ResponseCacheAdvice, which
+ * has the serialized body captured and stored; one-off requests are never
+ * stored
+ * - Hits still feed the search event (result count) and the search counter,
+ * which counts the same requests as SearchService (SearchCriteria.isSearch
+ * of the request's criteria)
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheInterceptor implements HandlerInterceptor {
+
+    public static final String KEY_ATTRIBUTE = ResponseCacheInterceptor.class.getName() + ".key";
+
+    private static final String GZIP = "gzip";
+
+    private final CompressedResponseCache responseCache;
+    private final CorpusVersionService corpusVersionService;
+    private final CorpusETagInterceptor corpusETagInterceptor;
+    private final SystemStatsService systemStatsService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!responseCache.isEnabled() || !"GET".equals(request.getMethod())) {
+            return true;
+        }
+        long version = corpusVersionService.currentVersion();
+        if (version < 0) {
+            return true;
+        }
+
+        String key = ResponseCacheKeys.of(version, request);
+        if (key == null) {
+            return true;
+        }
+        CompressedResponseCache.Entry entry = responseCache.get(key);
+        if (entry == null) {
+            if (responseCache.admit(key)) {
+                request.setAttribute(KEY_ATTRIBUTE, key);
+            }
+            return true;
+        }
+
+        ByteBuffer gzip = entry.gzip();
+        ByteBuffer body = (gzip != null && acceptsGzip(request)) ? gzip : entry.plain();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(entry.getContentType());
+        corpusETagInterceptor.applyValidators(request, response, body == gzip);
+        if (body == gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        response.setContentLength(body.remaining());
+        response.getOutputStream().write(body);
+
+        if (entry.getResults() != null) {
+            request.setAttribute(SearchEvent.RESULTS_ATTRIBUTE, entry.getResults());
+        }
+        if ("/search".equals(request.getServletPath())
+                && ResponseCacheKeys.criteria(request, null).isSearch()) {
+            systemStatsService.recordSearch();
+        }
+        return false;
+    }
+
+    /**
+     * True when an Accept-Encoding header lists gzip (or *) with a non-zero
+     * quality.
+     */
+    static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String coding : headers.nextElement().split(",")) {
+                int semicolon = coding.indexOf(';');
+                String name = ((semicolon < 0) ? coding : coding.substring(0, semicolon)).trim()
+                        .toLowerCase(Locale.ROOT);
+                if ((GZIP.equals(name) || "*".equals(name)) && (semicolon < 0 || !zeroQuality(coding.substring(semicolon + 1)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean zeroQuality(String parameters) {
+        for (String parameter : parameters.split(";")) {
+            String trimmed = parameter.trim();
+            if (trimmed.startsWith("q=") || trimmed.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(trimmed.substring(2).trim()) <= 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,229 @@
+package com.guidescope.config;
+
+import com.guidescope.search.QueryNormalizer;
+import com.guidescope.search.SearchCriteria;
+import com.guidescope.search.SearchField;
+import com.guidescope.service.SearchQueryKey;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.util.StringUtils;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * ResponseCacheKeys builds the CompressedResponseCache key of a request from
+ * its normalized input instead of the raw query string, so requests that only
+ * differ in parameter order, encoding, ignored parameters, the case of the
+ * query or whitespace around it share one entry.
+ *
+ * Characteristics:
+ * - /search and /search/facets are keyed on the SearchQueryKey of
+ * SearchCriteria.of, like the result and facet caches; /search adds the
+ * projection and the page (offset mode) or the cursor (cursor mode)
+ * - /search/autocomplete is keyed on the normalized query and the filters
+ * SearchService suggests for, /search/capabilities on the corpus version
+ * - A key is a canonical query string ("/search?v=7&q=heart&type=guideline")
+ * of URL-encoded values, so two different inputs never share a key
+ * - Parameters are read the way the controller binds them (comma-separated
+ * arrays, Boolean and Integer conversion, Pageable bounds). A request the key
+ * cannot describe exactly (a repeated single-valued parameter, sort=, a value
+ * that does not convert) gets no key and is not cached; the controller
+ * answers it, with a 400 where binding fails
+ */
+final class ResponseCacheKeys {
+
+    // SearchController's @PageableDefault and spring.data.web.pageable.max-page-size
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 2000;
+    // SearchService.getAutocompleteSuggestions answers shorter queries with no suggestions
+    private static final int MIN_AUTOCOMPLETE_LENGTH = 3;
+
+    private static final Pattern INTEGER = Pattern.compile("-?[0-9]{1,10}");
+    private static final Pattern DIGITS = Pattern.compile("[0-9]{1,10}");
+
+    private ResponseCacheKeys() {
+    }
+
+    /**
+     * The cache key of a GET request at the corpus version, or null when the
+     * request is not cached.
+     */
+    static String of(long corpusVersion, HttpServletRequest request) {
+        try {
+            return switch (request.getServletPath()) {
+                case "/search" -> search(corpusVersion, request);
+                case "/search/facets" -> query("/search/facets", SearchQueryKey.of(corpusVersion,
+                        criteria(request, null))).toString();
+                case "/search/autocomplete" -> autocomplete(corpusVersion, request);
+                case "/search/capabilities" -> "/search/capabilities?v=" + corpusVersion;
+                default -> null;
+            };
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The /search (and /search/facets) criteria of the request, as the
+     * controller binds and SearchService normalizes them.
+     */
+    static SearchCriteria criteria(HttpServletRequest request, Set<SearchField> fields) {
+        return SearchCriteria.of(single(request, "q"), array(request, "type"), single(request, "region"),
+                single(request, "field"), integer(request, "year_from"), integer(request, "year_to"),
+                single(request, "slug"), bool(request, "exact"), fields);
+    }
+
+    private static String search(long corpusVersion, HttpServletRequest request) {
+        if (request.getParameterValues("sort") != null) {
+            // Rejected by SearchService
+            return null;
+        }
+        Set<SearchField> fields = SearchField.parse(request.getParameterValues("fields"));
+        StringBuilder key = query("/search", SearchQueryKey.of(corpusVersion, criteria(request, fields)));
+        append(key, "fields", fields.stream().map(SearchField::column).toList());
+        int size = number(request, "size", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+        String cursor = single(request, "cursor");
+        if (cursor != null) {
+            // Cursor mode ignores page and counts only on request
+            append(key, "cursor", cursor);
+            append(key, "include_total", bool(request, "include_total"));
+        } else {
+            append(key, "page", number(request, "page", 0, 0, Integer.MAX_VALUE));
+        }
+        append(key, "size", size);
+        return key.toString();
+    }
+
+    private static String autocomplete(long corpusVersion, HttpServletRequest request) {
+        String query = single(request, "q");
+        if (query == null) {
+            // Required parameter
+            return null;
+        }
+        SearchCriteria criteria = SearchCriteria.builder()
+                .query(QueryNormalizer.normalize(query, false).getNormalized())
+                .types(array(request, "type"))
+                .region(single(request, "region"))
+                .field(single(request, "field"))
+                .yearFrom(integer(request, "year_from"))
+                .yearTo(integer(request, "year_to"))
+                .build();
+        if (query.trim().length() < MIN_AUTOCOMPLETE_LENGTH) {
+            return "/search/autocomplete?v=" + corpusVersion + "&short=true";
+        }
+        return query("/search/autocomplete", SearchQueryKey.of(corpusVersion, criteria)).toString();
+    }
+
+    private static StringBuilder query(String path, SearchQueryKey query) {
+        StringBuilder key = new StringBuilder(128).append(path).append("?v=").append(query.getCorpusVersion());
+        append(key, "q", query.getQuery());
+        append(key, "prefix", query.getPrefixQuery());
+        append(key, "slug", query.getSlug());
+        append(key, "exact", query.isExact());
+        append(key, "type", query.getTypes());
+        append(key, "region", query.getRegion());
+        append(key, "field", query.getField());
+        append(key, "year_from", query.getYearFrom());
+        append(key, "year_to", query.getYearTo());
+        return key;
+    }
+
+    private static void append(StringBuilder key, String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        key.append('&').append(name).append('=');
+        if (value instanceof List<?> values) {
+            for (int i = 0; i < values.size(); i++) {
+                key.append((i > 0) ? "," : "").append(encode(values.get(i)));
+            }
+        } else {
+            key.append(encode(value));
+        }
+    }
+
+    private static String encode(Object value) {
+        return URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A single-valued parameter. Repeated values would be joined with commas
+     * by the binder, so they are not cached.
+     */
+    private static String single(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        if (values == null) {
+            return null;
+        }
+        if (values.length > 1) {
+            throw new IllegalArgumentException("Repeated parameter " + name);
+        }
+        return values[0];
+    }
+
+    /**
+     * An array parameter: a single value is split at commas and each element
+     * trimmed, as the binder does; repeated values are taken as they are.
+     */
+    private static String[] array(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        if (values == null || values.length != 1) {
+            return values;
+        }
+        String[] split = StringUtils.commaDelimitedListToStringArray(values[0]);
+        for (int i = 0; i < split.length; i++) {
+            split[i] = split[i].trim();
+        }
+        return split;
+    }
+
+    private static Integer integer(HttpServletRequest request, String name) {
+        String value = single(request, name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (!INTEGER.matcher(trimmed).matches()) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+        return Integer.valueOf(trimmed);
+    }
+
+    /**
+     * A Boolean parameter with defaultValue "false".
+     */
+    private static boolean bool(HttpServletRequest request, String name) {
+        String value = single(request, name);
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "on", "yes", "1" -> true;
+            case "false", "off", "no", "0" -> false;
+            default -> throw new IllegalArgumentException("Invalid " + name);
+        };
+    }
+
+    /**
+     * A Pageable parameter. Values the resolver would replace or clamp are not
+     * cached.
+     */
+    private static int number(HttpServletRequest request, String name, int absent, int min, int max) {
+        String value = single(request, name);
+        if (value == null) {
+            return absent;
+        }
+        if (!DIGITS.matcher(value).matches()) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+        int parsed = Integer.parseInt(value);
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException("Invalid " + name);
+        }
+        return parsed;
+    }
+}
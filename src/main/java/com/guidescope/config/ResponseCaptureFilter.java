@@ -0,0 +1,140 @@
+package com.guidescope.config;
+
+import com.guidescope.service.CompressedResponseCache;
+import jakarta.servlet.*;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * ResponseCaptureFilter hands the body the message converter wrote to the
+ * CompressedResponseCache, so a stored response is serialized exactly once.
+ *
+ * Characteristics:
+ * - GET /search* responses are wrapped; bytes are only copied once
+ * ResponseCacheAdvice has started a capture (an admitted, cacheable 200
+ * JSON body), and are written through to the client as before
+ * - The body is stored after the handler returns normally with a 200; a
+ * failed write, an exception or a reset response discards it
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCaptureFilter implements Filter {
+
+    private final CompressedResponseCache responseCache;
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        if (!responseCache.isEnabled() || !"GET".equals(httpRequest.getMethod())
+                || !httpRequest.getRequestURI().startsWith("/search")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CapturingResponse capturing = new CapturingResponse((HttpServletResponse) response);
+        chain.doFilter(request, capturing);
+        if (capturing.key != null && capturing.getStatus() == HttpServletResponse.SC_OK
+                && capturing.body.size() > 0) {
+            responseCache.put(capturing.key, capturing.body.toByteArray(), MediaType.APPLICATION_JSON_VALUE,
+                    capturing.results);
+        }
+    }
+
+    /**
+     * Response whose output stream copies what is written once capture is
+     * started. Bodies written through getWriter are not captured.
+     */
+    public static final class CapturingResponse extends HttpServletResponseWrapper {
+
+        private String key;
+        private Long results;
+        private ByteArrayOutputStream body;
+        private ServletOutputStream outputStream;
+
+        CapturingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        /**
+         * Starts copying the body for the given cache key.
+         */
+        public void capture(String key, Long results) {
+            this.key = key;
+            this.results = results;
+            this.body = new ByteArrayOutputStream(8192);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new TeeOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            key = null;
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            key = null;
+        }
+
+        private final class TeeOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream delegate;
+
+            TeeOutputStream(ServletOutputStream delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                delegate.write(b);
+                if (key != null) {
+                    body.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                delegate.write(b, off, len);
+                if (key != null) {
+                    body.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                delegate.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                delegate.close();
+            }
+
+            @Override
+            public boolean isReady() {
+                return delegate.isReady();
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                delegate.setWriteListener(writeListener);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.guidescope.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfig enables @Scheduled background jobs (e.g. the system stats
+ * flusher).
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,36 +1,54 @@
 package com.guidescope.config;
 
+import com.guidescope.analytics.SearchEvent;
+import com.guidescope.analytics.SearchEventLog;
+import com.guidescope.ratelimit.RateLimiter;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.time.Duration;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SearchRequestLoggingFilter provides system observability and protection.
  * 
  * Hardening Measures:
- * - Logs query performance (latency tracking)
- * - Logs search patterns (clinical analysis)
- * - Implements basic rate limiting (50 RPM/IP) to protect the database
+ * - Publishes one SearchEvent per request (latency, query, filters, status,
+ * result count) to the asynchronous SearchEventLog for clinical analysis
+ * - Rate limits each IP with token buckets (see RateLimiter) to protect the
+ * database: /search/autocomplete has its own, larger budget since it is called
+ * per keystroke; every other /search endpoint shares the search budget
+ * (app.rate-limit.*)
  */
 @Component
 @Slf4j
 public class SearchRequestLoggingFilter implements Filter {
 
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private static final String AUTOCOMPLETE_PATH = "/search/autocomplete";
 
-    public SearchRequestLoggingFilter() {
-        scheduler.scheduleAtFixedRate(requestCounts::clear, 1, 1, TimeUnit.MINUTES);
+    private final RateLimiter searchLimiter;
+    private final RateLimiter autocompleteLimiter;
+    private final SearchEventLog searchEventLog;
+
+    public SearchRequestLoggingFilter(
+            SearchEventLog searchEventLog,
+            @Value("${app.rate-limit.max-keys:100000}") long maxKeys,
+            @Value("${app.rate-limit.search.permits:50}") long searchPermits,
+            @Value("${app.rate-limit.search.period:1m}") Duration searchPeriod,
+            @Value("${app.rate-limit.search.burst:50}") long searchBurst,
+            @Value("${app.rate-limit.autocomplete.permits:300}") long autocompletePermits,
+            @Value("${app.rate-limit.autocomplete.period:1m}") Duration autocompletePeriod,
+            @Value("${app.rate-limit.autocomplete.burst:30}") long autocompleteBurst) {
+        this.searchEventLog = searchEventLog;
+        this.searchLimiter = new RateLimiter(searchPermits, searchPeriod, searchBurst, maxKeys);
+        this.autocompleteLimiter = new RateLimiter(autocompletePermits, autocompletePeriod, autocompleteBurst,
+                maxKeys);
     }
 
     @Override
@@ -40,14 +58,18 @@ public class SearchRequestLoggingFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
 
-        if (httpRequest.getRequestURI().startsWith("/search")) {
+        String uri = httpRequest.getRequestURI();
+        if (uri.startsWith("/search")) {
             String ip = httpRequest.getRemoteAddr();
-            int count = requestCounts.computeIfAbsent(ip, k -> new AtomicInteger(0))
-                    .incrementAndGet();
+            RateLimiter limiter = uri.equals(AUTOCOMPLETE_PATH) ? autocompleteLimiter : searchLimiter;
+            long waitNanos = limiter.tryAcquire(ip);
 
-            if (count > 50) { // Basic rate limit: 50 requests per minute
-                log.warn("RATE_LIMIT | IP: {} | Count: {}", ip, count);
+            if (waitNanos > 0) {
+                // Whole seconds, rounded up
+                long retryAfter = TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1;
+                log.warn("RATE_LIMIT | IP: {} | Path: {} | Retry-After: {}s", ip, uri, retryAfter);
                 httpResponse.setStatus(429);
+                httpResponse.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
                 httpResponse.getWriter().write("Too Many Requests - Rate limit exceeded");
                 return;
             }
@@ -58,20 +80,22 @@ public class SearchRequestLoggingFilter implements Filter {
                 chain.doFilter(request, response);
             } finally {
                 long duration = System.currentTimeMillis() - startTime;
-                String query = httpRequest.getParameter("q");
-                String types = httpRequest.getParameter("type");
-                int status = httpResponse.getStatus();
-
-                log.info("SEARCH_LOG | Status: {} | Duration: {}ms | Q: '{}' | Types: {} | IP: {}",
-                        status, duration, query, types, ip);
+                searchEventLog.publish(new SearchEvent(
+                        startTime,
+                        uri,
+                        httpRequest.getParameter("q"),
+                        httpRequest.getParameterValues("type"),
+                        httpRequest.getParameter("region"),
+                        httpRequest.getParameter("field"),
+                        httpRequest.getParameter("year_from"),
+                        httpRequest.getParameter("year_to"),
+                        httpRequest.getParameter("slug"),
+                        httpResponse.getStatus(),
+                        duration,
+                        (Long) httpRequest.getAttribute(SearchEvent.RESULTS_ATTRIBUTE)));
             }
         } else {
             chain.doFilter(request, response);
         }
     }
-
-    @Override
-    public void destroy() {
-        scheduler.shutdown();
-    }
 }
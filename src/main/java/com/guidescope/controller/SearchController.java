@@ -2,19 +2,24 @@ package com.guidescope.controller;
 
 import com.guidescope.dto.AutocompleteResponseDTO;
 import com.guidescope.dto.SearchCapabilitiesDTO;
+import com.guidescope.dto.SearchFacetsDTO;
 import com.guidescope.dto.SearchResponseDTO;
+import com.guidescope.service.SearchExportService;
 import com.guidescope.service.SearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -23,6 +28,8 @@ import java.util.List;
  * Responsibilities:
  * - Expose read-only /search endpoint
  * - Expose read-only /search/capabilities endpoint
+ * - Expose read-only /search/facets endpoint
+ * - Expose streaming /search/export endpoint
  * - Map HTTP query parameters to service layer
  * - Provide a stable, documented API contract via OpenAPI
  */
@@ -42,13 +49,18 @@ public class SearchController {
      * @param field    Optional specialty filter (Cardiology, Oncology, etc.)
      * @param yearFrom Minimum publication year
      * @param yearTo   Maximum publication year
-     * @param pageable Paging parameters (page, size, sort)
-     * @return SearchResponseDTO containing results and total count
+     * @param pageable Paging parameters (page, size; sort is rejected)
+     * @param cursor   Keyset cursor ("*" for the first page); enables cursor mode
+     * @param includeTotal Whether to count the total in cursor mode
+     * @param fields   Result properties to return (all when omitted)
+     * @return SearchResponseDTO containing results and total count (and
+     *         nextCursor in cursor mode)
      */
-    @Operation(summary = "Search clinical documents", description = "Performs a full-text search with optional filters for type, region, field, and year range.")
+    @Operation(summary = "Search clinical documents", description = "Performs a full-text search with optional filters for type, region, field, and year range. Supports offset paging (page/size) and keyset paging (cursor).")
     @ApiResponse(responseCode = "200", description = "Successful search execution")
     @ApiResponse(responseCode = "400", description = "Invalid search parameters")
     @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    @ApiResponse(responseCode = "304", description = "Not modified since the corpus version in If-None-Match")
     @GetMapping("/search")
     public SearchResponseDTO search(
             @Parameter(description = "Keywords to search for in title and keywords") @RequestParam(value = "q", required = false) String query,
@@ -59,8 +71,12 @@ public class SearchController {
             @Parameter(description = "Maximum publication year") @RequestParam(value = "year_to", required = false) Integer yearTo,
             @Parameter(description = "Filter by exact slug") @RequestParam(value = "slug", required = false) String slug,
             @Parameter(description = "Request exact title match") @RequestParam(value = "exact", required = false, defaultValue = "false") Boolean exact,
-            @PageableDefault(size = 20) Pageable pageable) {
-        return searchService.search(query, types, region, field, yearFrom, yearTo, slug, exact, pageable);
+            @PageableDefault(size = 20) Pageable pageable,
+            @Parameter(description = "Keyset cursor: '*' for the first page, then the previous nextCursor. Replaces offset paging when set") @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Count total matches in cursor mode (offset mode always counts)") @RequestParam(value = "include_total", required = false, defaultValue = "false") Boolean includeTotal,
+            @Parameter(description = "Comma-separated result properties to return, e.g. title,year,link (id is always included; default: all)") @RequestParam(value = "fields", required = false) String[] fields) {
+        return searchService.search(query, types, region, field, yearFrom, yearTo, slug, exact, fields, pageable,
+                cursor, includeTotal);
     }
 
     /**
@@ -71,11 +87,70 @@ public class SearchController {
      */
     @Operation(summary = "Get search capabilities", description = "Returns dynamic clinical dimensions (types, regions, fields, year ranges) for UI filter initialization.")
     @ApiResponse(responseCode = "200", description = "Capabilities retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Not modified since the corpus version in If-None-Match")
     @GetMapping("/search/capabilities")
     public SearchCapabilitiesDTO getCapabilities() {
         return searchService.getCapabilities();
     }
 
+    /**
+     * Counts matches per facet value for a search.
+     *
+     * Each dimension is counted with the filters of the other dimensions applied
+     * (but not its own), so the counts tell how many results selecting a value
+     * would return. Years are returned as a histogram.
+     *
+     * @return SearchFacetsDTO with the filtered total and per-value counts
+     */
+    @Operation(summary = "Get facet counts", description = "Returns per-type, per-region, per-field and per-year result counts for a query and filter set. Each dimension ignores its own filter.")
+    @ApiResponse(responseCode = "200", description = "Facet counts computed successfully")
+    @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    @ApiResponse(responseCode = "304", description = "Not modified since the corpus version in If-None-Match")
+    @GetMapping("/search/facets")
+    public SearchFacetsDTO getFacets(
+            @Parameter(description = "Keywords to search for in title and keywords") @RequestParam(value = "q", required = false) String query,
+            @Parameter(description = "Filter by document types") @RequestParam(value = "type", required = false) String[] types,
+            @Parameter(description = "Filter by region") @RequestParam(value = "region", required = false) String region,
+            @Parameter(description = "Filter by specialty field") @RequestParam(value = "field", required = false) String field,
+            @Parameter(description = "Minimum publication year") @RequestParam(value = "year_from", required = false) Integer yearFrom,
+            @Parameter(description = "Maximum publication year") @RequestParam(value = "year_to", required = false) Integer yearTo,
+            @Parameter(description = "Filter by exact slug") @RequestParam(value = "slug", required = false) String slug,
+            @Parameter(description = "Request exact title match") @RequestParam(value = "exact", required = false, defaultValue = "false") Boolean exact) {
+        return searchService.getFacets(query, types, region, field, yearFrom, yearTo, slug, exact);
+    }
+
+    /**
+     * Streams the full result set of a search as NDJSON or CSV.
+     *
+     * Takes the same query and filter parameters as /search, without paging.
+     * Rows are written as they are read from a server-side cursor.
+     *
+     * @param format ndjson (default) or csv
+     */
+    @Operation(summary = "Export search results", description = "Streams every match of a search, in /search order, as NDJSON (one result per line) or CSV. Memory use is constant regardless of result size.")
+    @ApiResponse(responseCode = "200", description = "Export streamed")
+    @ApiResponse(responseCode = "400", description = "Unsupported format")
+    @ApiResponse(responseCode = "429", description = "Rate limit exceeded")
+    @GetMapping("/search/export")
+    public void export(
+            @Parameter(description = "Keywords to search for in title and keywords") @RequestParam(value = "q", required = false) String query,
+            @Parameter(description = "Filter by document types") @RequestParam(value = "type", required = false) String[] types,
+            @Parameter(description = "Filter by region") @RequestParam(value = "region", required = false) String region,
+            @Parameter(description = "Filter by specialty field") @RequestParam(value = "field", required = false) String field,
+            @Parameter(description = "Minimum publication year") @RequestParam(value = "year_from", required = false) Integer yearFrom,
+            @Parameter(description = "Maximum publication year") @RequestParam(value = "year_to", required = false) Integer yearTo,
+            @Parameter(description = "Filter by exact slug") @RequestParam(value = "slug", required = false) String slug,
+            @Parameter(description = "Request exact title match") @RequestParam(value = "exact", required = false, defaultValue = "false") Boolean exact,
+            @Parameter(description = "Output format: ndjson or csv") @RequestParam(value = "format", required = false, defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+        SearchExportService.Format exportFormat = SearchExportService.Format.of(format);
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"guidescope-export." + exportFormat.getExtension() + "\"");
+        searchService.export(query, types, region, field, yearFrom, yearTo, slug, exact, exportFormat,
+                response.getOutputStream());
+    }
+
     /**
      * Provides autocomplete suggestions for search assistance.
      * 
@@ -84,6 +159,7 @@ public class SearchController {
      */
     @Operation(summary = "Get autocomplete suggestions", description = "Returns up to 5 search suggestions based on document titles and keywords. Requires minimum 3 characters. Respects active search filters.")
     @ApiResponse(responseCode = "200", description = "Suggestions retrieved successfully")
+    @ApiResponse(responseCode = "304", description = "Not modified since the corpus version in If-None-Match")
     @GetMapping("/search/autocomplete")
     public AutocompleteResponseDTO getAutocomplete(
             @Parameter(description = "Partial search term (min 3 chars)") @RequestParam("q") String query,
@@ -0,0 +1,33 @@
+package com.guidescope.controller;
+
+import com.guidescope.search.SlowQueryPlan;
+import com.guidescope.search.SlowQueryProfiler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SlowQueryEndpoint exposes the plans captured by SlowQueryProfiler as the
+ * read-only slowqueries endpoint: plans per "operation:shape" (e.g.
+ * "search:text"), newest first.
+ *
+ * The plans carry raw search terms, so the endpoint is exposed over JMX only
+ * (management.endpoints.jmx.exposure). It has no write operation; old plans
+ * are replaced by newer ones of the same shape.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueryEndpoint {
+
+    private final SlowQueryProfiler slowQueryProfiler;
+
+    @ReadOperation
+    public Map<String, List<SlowQueryPlan>> plans() {
+        return slowQueryProfiler.plans();
+    }
+}
@@ -0,0 +1,23 @@
+package com.guidescope.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchFacetsDTO {
+    // Matches for the query with every filter applied
+    private long total;
+    // Value -> count, each dimension ignoring its own filter
+    private Map<String, Long> types;
+    private Map<String, Long> regions;
+    private Map<String, Long> fields;
+    // Year histogram (ascending), ignoring year_from/year_to
+    private Map<Integer, Long> years;
+}
@@ -1,5 +1,6 @@
 package com.guidescope.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -13,7 +14,15 @@ import java.util.List;
 @AllArgsConstructor
 public class SearchResponseDTO {
     private List<SearchResultDTO> results;
-    private long total;
+    // Null in cursor mode unless include_total=true
+    private Long total;
+    // True when total is an estimate (count mode "estimate" above the threshold)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean totalApproximate;
     private int limit;
-    private int offset;
+    // Null in cursor mode
+    private Integer offset;
+    // Cursor mode only: token for the next page, null on the last page
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
 }
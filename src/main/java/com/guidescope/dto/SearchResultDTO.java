@@ -1,26 +1,32 @@
 package com.guidescope.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.util.UUID;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * One search hit. Immutable, so engines and caches can share instances.
+ *
+ * A full result serializes every property, null or not. A result built by a
+ * fields= projection is marked projected and serializes only its non-null
+ * properties, so the fields that were not requested are left out.
+ */
+@Value
 @Builder
 public class SearchResultDTO {
-    private UUID id;
-    private String type;
-    private String region;
-    private String field;
-    private String title;
-    private Integer year;
-    private String link;
-    private String authors;
-    private String source;
-    private String citation;
-    private String[] keywords;
+    UUID id;
+    String type;
+    String region;
+    String field;
+    String title;
+    Integer year;
+    String link;
+    String authors;
+    String source;
+    String citation;
+    String[] keywords;
+    @JsonIgnore
+    boolean projected;
 }
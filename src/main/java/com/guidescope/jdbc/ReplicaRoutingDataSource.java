@@ -0,0 +1,243 @@
+package com.guidescope.jdbc;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ReplicaRoutingDataSource sends read-only transactions to PostgreSQL read
+ * replicas and everything else to the primary.
+ *
+ * Routing:
+ * - Connections are fetched lazily (LazyConnectionDataSourceProxy), so the
+ * transaction's readOnly flag is known when the target is chosen; read-only
+ * transactions take the next eligible replica in round-robin order
+ * - A replica is eligible while its last check succeeded, its replay lag is
+ * within maxLag, and it has replayed the corpus version the primary is known
+ * to be at (see requireVersion), so caches keyed on that version are never
+ * filled from an older catalogue
+ * - With no eligible replica, or when a replica's pool fails, the read runs on
+ * the primary (counted as datasource.replica.fallback); a failing replica is
+ * skipped until its next successful check
+ *
+ * Checks run every checkInterval on a daemon thread: the primary's
+ * corpus_state version, then each replica's recovery state, replay lag (zero
+ * once everything received is replayed) and corpus_state version. Eligibility
+ * and lag are published per pool as datasource.replica.eligible and
+ * datasource.replica.lag.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private static final String PRIMARY_VERSION = "SELECT version FROM corpus_state WHERE id = 1";
+
+    private static final String REPLICA_STATE = """
+            SELECT
+              CASE
+                WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000
+              END AS lag_millis,
+              (SELECT version FROM corpus_state WHERE id = 1) AS version
+            """;
+
+    private final DataSource primary;
+    private final AutoCloseable primaryPool;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicLong requiredVersion = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService checker;
+    private final Counter fallbacks;
+
+    public ReplicaRoutingDataSource(DataSource primary, AutoCloseable primaryPool, List<Replica> replicas,
+            Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        super(primary);
+        this.primary = primary;
+        this.primaryPool = primaryPool;
+        this.replicas = List.copyOf(replicas);
+        this.maxLagMillis = maxLag.toMillis();
+        setReadOnlyDataSource(new ReadOnlyDataSource());
+
+        this.fallbacks = (meterRegistry != null) ? Counter.builder("datasource.replica.fallback")
+                .description("Read-only connections served by the primary")
+                .register(meterRegistry) : null;
+        if (meterRegistry != null) {
+            for (Replica replica : this.replicas) {
+                Gauge.builder("datasource.replica.eligible", replica, r -> isEligible(r) ? 1 : 0)
+                        .tag("pool", replica.getName())
+                        .register(meterRegistry);
+                Gauge.builder("datasource.replica.lag", replica, Replica::getLagMillis)
+                        .tag("pool", replica.getName())
+                        .baseUnit("milliseconds")
+                        .register(meterRegistry);
+            }
+        }
+
+        // Reads use the primary until the first check has passed
+        this.checker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-check").daemon().factory());
+        checker.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replicas must have replayed at least this corpus version to serve reads.
+     * Versions never move backwards.
+     */
+    public void requireVersion(long version) {
+        requiredVersion.accumulateAndGet(version, Math::max);
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public boolean isEligible(Replica replica) {
+        return replica.healthy
+                && replica.lagMillis <= maxLagMillis
+                && replica.version >= requiredVersion.get();
+    }
+
+    @Override
+    public void close() {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            closeQuietly(replica.getName(), replica.pool);
+        }
+        closeQuietly("primary", primaryPool);
+    }
+
+    void check() {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(PRIMARY_VERSION)) {
+            if (rs.next()) {
+                requireVersion(rs.getLong(1));
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.warn("Failed to read the primary corpus version: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        boolean wasEligible = isEligible(replica);
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(REPLICA_STATE)) {
+            rs.next();
+            double lag = rs.getDouble(1);
+            // No replayed transaction yet: the lag is unknown
+            replica.lagMillis = rs.wasNull() ? Long.MAX_VALUE : Math.round(lag);
+            replica.version = rs.getLong(2);
+            replica.healthy = true;
+        } catch (SQLException | RuntimeException e) {
+            replica.healthy = false;
+            if (wasEligible) {
+                log.warn("Replica {} failed its check: {}", replica.getName(), e.getMessage());
+            }
+        }
+        boolean eligible = isEligible(replica);
+        if (eligible != wasEligible) {
+            log.info("Replica {} is now {} (healthy {}, lag {}ms, corpus version {} of {})", replica.getName(),
+                    eligible ? "serving reads" : "skipped", replica.healthy, replica.lagMillis, replica.version,
+                    requiredVersion.get());
+        }
+    }
+
+    private static void closeQuietly(String name, AutoCloseable pool) {
+        try {
+            pool.close();
+        } catch (Exception e) {
+            log.warn("Failed to close the {} pool: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * Target of read-only transactions: an eligible replica, or the primary.
+     */
+    private class ReadOnlyDataSource extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            int size = replicas.size();
+            int start = (size > 0) ? Math.floorMod(next.getAndIncrement(), size) : 0;
+            for (int i = 0; i < size; i++) {
+                Replica replica = replicas.get((start + i) % size);
+                if (!isEligible(replica)) {
+                    continue;
+                }
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.healthy = false;
+                    log.warn("Replica {} unavailable, skipping it until the next check: {}", replica.getName(),
+                            e.getMessage());
+                }
+            }
+            if (fallbacks != null) {
+                fallbacks.increment();
+            }
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Replica pools use their configured credentials");
+        }
+    }
+
+    /**
+     * One replica pool and the state of its last check.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final AutoCloseable pool;
+
+        private volatile boolean healthy;
+        private volatile long lagMillis = Long.MAX_VALUE;
+        private volatile long version = -1;
+
+        public Replica(String name, DataSource dataSource, AutoCloseable pool) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.pool = pool;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public long getLagMillis() {
+            return lagMillis;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.guidescope.json;
+
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.dto.SearchResponseDTO;
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.search.SearchMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.databind.ser.std.StdSerializer;
+
+import java.util.List;
+
+/**
+ * SearchJsonModule writes the search response DTOs with hand-written
+ * serializers instead of Jackson's reflective bean serializers.
+ *
+ * Characteristics:
+ * - Properties are written straight to the JsonGenerator in a fixed order;
+ * no bean introspection or getter dispatch per value
+ * - Property names are precomputed SerializedStrings, so their quoted UTF-8
+ * bytes are copied rather than encoded on every write
+ * - Output matches the DTO annotations (null totalApproximate/nextCursor
+ * are left out, and null SearchResultDTO properties only in projected results)
+ *
+ * Registered with the application JsonMapper as a module bean, so it applies
+ * to MVC responses and to the NDJSON export alike. With SearchMetrics, writing
+ * a search or autocomplete response is timed as the "serialize" stage.
+ */
+@Component
+public class SearchJsonModule extends SimpleModule {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString TYPE = new SerializedString("type");
+    private static final SerializedString REGION = new SerializedString("region");
+    private static final SerializedString FIELD = new SerializedString("field");
+    private static final SerializedString TITLE = new SerializedString("title");
+    private static final SerializedString YEAR = new SerializedString("year");
+    private static final SerializedString LINK = new SerializedString("link");
+    private static final SerializedString AUTHORS = new SerializedString("authors");
+    private static final SerializedString SOURCE = new SerializedString("source");
+    private static final SerializedString CITATION = new SerializedString("citation");
+    private static final SerializedString KEYWORDS = new SerializedString("keywords");
+
+    private static final SerializedString RESULTS = new SerializedString("results");
+    private static final SerializedString TOTAL = new SerializedString("total");
+    private static final SerializedString TOTAL_APPROXIMATE = new SerializedString("totalApproximate");
+    private static final SerializedString LIMIT = new SerializedString("limit");
+    private static final SerializedString OFFSET = new SerializedString("offset");
+    private static final SerializedString NEXT_CURSOR = new SerializedString("nextCursor");
+
+    private static final SerializedString SUGGESTIONS = new SerializedString("suggestions");
+    private static final SerializedString SLUG = new SerializedString("slug");
+
+    public SearchJsonModule() {
+        this(null);
+    }
+
+    @Autowired
+    public SearchJsonModule(SearchMetrics searchMetrics) {
+        super("guidescope-search");
+        addSerializer(SearchResultDTO.class, new SearchResultSerializer());
+        addSerializer(SearchResponseDTO.class, new SearchResponseSerializer(searchMetrics));
+        addSerializer(AutocompleteResponseDTO.class, new AutocompleteResponseSerializer(searchMetrics));
+    }
+
+    /**
+     * Writes one result object; also used per line by the NDJSON export.
+     * Null properties are written as null, except in a projected result,
+     * where they are the fields that were not requested and are left out.
+     */
+    public static void writeResult(JsonGenerator gen, SearchResultDTO result) {
+        boolean omitNulls = result.isProjected();
+        gen.writeStartObject();
+        gen.writeName(ID);
+        if (result.getId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(result.getId().toString());
+        }
+        writeString(gen, TYPE, result.getType(), omitNulls);
+        writeString(gen, REGION, result.getRegion(), omitNulls);
+        writeString(gen, FIELD, result.getField(), omitNulls);
+        writeString(gen, TITLE, result.getTitle(), omitNulls);
+        if (result.getYear() != null) {
+            gen.writeName(YEAR);
+            gen.writeNumber(result.getYear());
+        } else if (!omitNulls) {
+            gen.writeName(YEAR);
+            gen.writeNull();
+        }
+        writeString(gen, LINK, result.getLink(), omitNulls);
+        writeString(gen, AUTHORS, result.getAuthors(), omitNulls);
+        writeString(gen, SOURCE, result.getSource(), omitNulls);
+        writeString(gen, CITATION, result.getCitation(), omitNulls);
+        if (result.getKeywords() != null) {
+            gen.writeName(KEYWORDS);
+            gen.writeStartArray();
+            for (String keyword : result.getKeywords()) {
+                gen.writeString(keyword);
+            }
+            gen.writeEndArray();
+        } else if (!omitNulls) {
+            gen.writeName(KEYWORDS);
+            gen.writeNull();
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator gen, SerializedString name, String value, boolean omitNull) {
+        if (value != null) {
+            gen.writeName(name);
+            gen.writeString(value);
+        } else if (!omitNull) {
+            gen.writeName(name);
+            gen.writeNull();
+        }
+    }
+
+    static final class SearchResultSerializer extends StdSerializer<SearchResultDTO> {
+
+        SearchResultSerializer() {
+            super(SearchResultDTO.class);
+        }
+
+        @Override
+        public void serialize(SearchResultDTO value, JsonGenerator gen, SerializationContext ctxt) {
+            writeResult(gen, value);
+        }
+    }
+
+    static final class SearchResponseSerializer extends StdSerializer<SearchResponseDTO> {
+
+        private final SearchMetrics searchMetrics;
+
+        SearchResponseSerializer(SearchMetrics searchMetrics) {
+            super(SearchResponseDTO.class);
+            this.searchMetrics = searchMetrics;
+        }
+
+        @Override
+        public void serialize(SearchResponseDTO value, JsonGenerator gen, SerializationContext ctxt) {
+            if (searchMetrics == null) {
+                write(value, gen);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                write(value, gen);
+            } finally {
+                searchMetrics.record(SearchMetrics.Operation.SEARCH, SearchMetrics.Stage.SERIALIZE, null,
+                        System.nanoTime() - start);
+            }
+        }
+
+        private static void write(SearchResponseDTO value, JsonGenerator gen) {
+            gen.writeStartObject();
+            gen.writeName(RESULTS);
+            List<SearchResultDTO> results = value.getResults();
+            if (results == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray();
+                for (SearchResultDTO result : results) {
+                    writeResult(gen, result);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeName(TOTAL);
+            if (value.getTotal() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value.getTotal());
+            }
+            if (value.getTotalApproximate() != null) {
+                gen.writeName(TOTAL_APPROXIMATE);
+                gen.writeBoolean(value.getTotalApproximate());
+            }
+            gen.writeName(LIMIT);
+            gen.writeNumber(value.getLimit());
+            gen.writeName(OFFSET);
+            if (value.getOffset() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(value.getOffset());
+            }
+            if (value.getNextCursor() != null) {
+                gen.writeName(NEXT_CURSOR);
+                gen.writeString(value.getNextCursor());
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static final class AutocompleteResponseSerializer extends StdSerializer<AutocompleteResponseDTO> {
+
+        private final SearchMetrics searchMetrics;
+
+        AutocompleteResponseSerializer(SearchMetrics searchMetrics) {
+            super(AutocompleteResponseDTO.class);
+            this.searchMetrics = searchMetrics;
+        }
+
+        @Override
+        public void serialize(AutocompleteResponseDTO value, JsonGenerator gen, SerializationContext ctxt) {
+            if (searchMetrics == null) {
+                write(value, gen);
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                write(value, gen);
+            } finally {
+                searchMetrics.record(SearchMetrics.Operation.AUTOCOMPLETE, SearchMetrics.Stage.SERIALIZE, null,
+                        System.nanoTime() - start);
+            }
+        }
+
+        private static void write(AutocompleteResponseDTO value, JsonGenerator gen) {
+            gen.writeStartObject();
+            gen.writeName(SUGGESTIONS);
+            if (value.getSuggestions() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray();
+                for (AutocompleteResponseDTO.Suggestion suggestion : value.getSuggestions()) {
+                    gen.writeStartObject();
+                    gen.writeName(TITLE);
+                    gen.writeString(suggestion.getTitle());
+                    gen.writeName(SLUG);
+                    gen.writeString(suggestion.getSlug());
+                    gen.writeEndObject();
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+    }
+}
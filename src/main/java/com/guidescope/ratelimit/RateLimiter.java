@@ -0,0 +1,81 @@
+package com.guidescope.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * RateLimiter is a per-key token bucket, implemented as GCRA (generic cell
+ * rate algorithm).
+ *
+ * Characteristics:
+ * - Each key holds a single "theoretical arrival time" updated with CAS, so
+ * acquiring is lock-free and allocation-free once the key is known
+ * - Up to burst requests are admitted at once, then one every
+ * period / permits; there is no window boundary to exploit
+ * - Keys live in a Caffeine table bounded by maxKeys (W-TinyLFU keeps the
+ * frequent, i.e. limited, clients) and expire once their bucket would be full
+ * again, so a spray from many addresses cannot grow memory
+ */
+public final class RateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<String, AtomicLong> buckets;
+
+    public RateLimiter(long permits, Duration period, long burst, long maxKeys) {
+        this(permits, period, burst, maxKeys, System::nanoTime);
+    }
+
+    public RateLimiter(long permits, Duration period, long burst, long maxKeys, LongSupplier nanoClock) {
+        if (permits <= 0 || burst <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limit needs positive permits, burst and period");
+        }
+        this.emissionIntervalNanos = Math.max(1, period.toNanos() / permits);
+        this.toleranceNanos = Math.multiplyExact(emissionIntervalNanos, burst);
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(toleranceNanos, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Takes one permit for the key.
+     *
+     * @return 0 when the request is admitted, otherwise the nanoseconds until
+     *         the next permit becomes available
+     */
+    public long tryAcquire(String key) {
+        AtomicLong bucket = buckets.get(key, RateLimiter::newBucket);
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long excess = next - now - toleranceNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Number of keys currently tracked (approximate).
+     */
+    public long trackedKeys() {
+        return buckets.estimatedSize();
+    }
+
+    private static AtomicLong newBucket(String key) {
+        // Long.MIN_VALUE: no request seen yet, max(arrival, now) starts at now
+        return new AtomicLong(Long.MIN_VALUE);
+    }
+}
@@ -1,8 +1,6 @@
 package com.guidescope.repository;
 
 import com.guidescope.model.Document;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,87 +12,63 @@ import java.util.UUID;
  * DocumentRepository handles low-level data access for GuideScope.
  * 
  * Implementation Details:
- * - Uses PostgreSQL Full-Text Search (FTS) with prefix matching
- * - Matches using 'search_vector' and 'to_tsquery' with ':*' operator
- * - Supports partial word matching (e.g., "bloo" matches "blood")
- * - Ranks results via 'ts_rank' using database-level weights (Title > Keywords)
- * - Applies multi-dimensional filtering (Type, Region, Field, Year)
+ * - Catalogue metadata (distinct filter values, year range, facet rows,
+ * corpus version) and the autocomplete lookup (autocomplete_suggestions)
+ * - Search pages, counts and match ids are run by SearchJdbcRepository with
+ * SQL specialized per request shape (SearchSql)
  */
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
 
-  @Query(value = """
-      SELECT
-        id,
-        type,
-        region,
-        field,
-        title,
-        year,
-        link,
-        authors,
-        source,
-        citation,
-        keywords,
-        CASE
-          WHEN CAST(:slug AS text) IS NOT NULL AND slug = CAST(:slug AS text) THEN 1000.0
-          WHEN lower(title) = lower(CAST(:query AS text)) THEN 100.0
-          WHEN (CAST(:query AS text) IS NULL OR :query = '') THEN 0
-          ELSE (
-            COALESCE(ts_rank(search_vector, websearch_to_tsquery('english', :query)), 0) * 2 +
-            COALESCE(ts_rank(search_vector, to_tsquery('english', :prefixQuery)), 0)
-          )
-        END AS score
-      FROM documents
-      WHERE
-        (
-          (CAST(:slug AS text) IS NOT NULL AND slug = CAST(:slug AS text))
-          OR
-          (
-            CAST(:query AS text) IS NULL OR :query = ''
-            OR lower(title) = lower(CAST(:query AS text))
-            OR search_vector @@ websearch_to_tsquery('english', :query)
-            OR search_vector @@ to_tsquery('english', :prefixQuery)
-          )
-        )
-        AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
-        AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
-        AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
-        AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
-        AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))
-      ORDER BY
-        CASE WHEN (CAST(:query AS text) IS NULL OR :query = '') THEN 0 ELSE 1 END DESC,
-        score DESC,
-        year DESC
-      """, countQuery = """
-      SELECT COUNT(*) FROM documents
-      WHERE
-        (
-          (CAST(:slug AS text) IS NOT NULL AND slug = CAST(:slug AS text))
-          OR
-          (
-            CAST(:query AS text) IS NULL OR :query = ''
-            OR lower(title) = lower(CAST(:query AS text))
-            OR search_vector @@ websearch_to_tsquery('english', :query)
-            OR search_vector @@ to_tsquery('english', :prefixQuery)
-          )
-        )
-        AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
-        AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
-        AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
-        AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
-        AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))
-      """, nativeQuery = true)
-  Page<Object[]> searchDocuments(
-      @Param("query") String query,
-      @Param("prefixQuery") String prefixQuery,
-      @Param("slug") String slug,
-      @Param("types") String[] types,
-      @Param("region") String region,
-      @Param("field") String field,
-      @Param("year_from") Integer yearFrom,
-      @Param("year_to") Integer yearTo,
-      Pageable pageable);
+  /**
+   * Autocomplete lookup over autocomplete_suggestions (see
+   * V5__Autocomplete_Suggestions.sql and V7__Autocomplete_Popular_Phrases.sql),
+   * shared with SearchJdbcRepository.explainAutocomplete.
+   *
+   * :query is a normalized query (QueryNormalizer), matched as a phrase
+   * prefix with text_pattern_ops range scans. Candidates are the 200 most
+   * popular matching phrases (idx_autocomplete_suggestions_popular) plus the
+   * first 200 in phrase order; they are ranked by popularity, then title
+   * before later-word and keyword matches, then shorter phrases.
+   */
+  String AUTOCOMPLETE_SUGGESTIONS = """
+      SELECT title, slug FROM (
+        SELECT DISTINCT ON (slug, title) title, slug, popularity, kind, length(phrase) AS phrase_length
+        FROM (
+          (SELECT title, slug, popularity, kind, phrase
+          FROM autocomplete_suggestions
+          WHERE phrase ~>=~ :query AND phrase ~<~ (:query || chr(1114111)) AND popularity > 0
+            AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
+            AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
+            AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
+            AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
+            AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))
+          ORDER BY popularity DESC
+          LIMIT 200)
+          UNION ALL
+          (SELECT title, slug, popularity, kind, phrase
+          FROM autocomplete_suggestions
+          WHERE phrase ~>=~ :query AND phrase ~<~ (:query || chr(1114111))
+            AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
+            AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
+            AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
+            AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
+            AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))
+          ORDER BY phrase USING ~<~
+          LIMIT 200)
+        ) candidates
+        ORDER BY slug, title, popularity DESC, kind, length(phrase)
+      ) best
+      ORDER BY popularity DESC, kind, phrase_length, title
+      LIMIT 5
+      """;
+
+  /**
+   * Facet attributes of every document: 0:id, 1:type, 2:region, 3:field,
+   * 4:year.
+   */
+  @Query(value = "SELECT id, type, region, field, year FROM documents ORDER BY id", nativeQuery = true)
+  java.util.List<Object[]> findFacetRows();
 
   @Query(value = "SELECT DISTINCT type FROM documents WHERE type IS NOT NULL ORDER BY type", nativeQuery = true)
   java.util.List<String> findDistinctTypes();
@@ -108,22 +82,14 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
   @Query(value = "SELECT MIN(year) as minYear, MAX(year) as maxYear FROM documents", nativeQuery = true)
   java.util.List<Object[]> findYearRange();
 
-  @Query(value = """
-      SELECT title, slug FROM (
-        SELECT DISTINCT title, slug,
-               ts_rank(search_vector, to_tsquery('english', regexp_replace(:query, E'\\\\s+', ':* & ', 'g') || ':*')) as rank
-        FROM documents
-        WHERE search_vector @@ to_tsquery('english', regexp_replace(:query, E'\\\\s+', ':* & ', 'g') || ':*')
-          AND title ILIKE '%' || :query || '%'
-          AND (CAST(:types AS text[]) IS NULL OR type = ANY(CAST(:types AS text[])))
-          AND (CAST(:region AS text) IS NULL OR region = CAST(:region AS text))
-          AND (CAST(:field AS text) IS NULL OR field = CAST(:field AS text))
-          AND (CAST(:year_from AS integer) IS NULL OR year >= CAST(:year_from AS integer))
-          AND (CAST(:year_to AS integer) IS NULL OR year <= CAST(:year_to AS integer))
-        ORDER BY rank DESC
-        LIMIT 5
-      ) ranked_titles
-      """, nativeQuery = true)
+  /**
+   * Current catalogue version, bumped by a statement-level trigger on every
+   * change to documents (see V2__Corpus_Version.sql).
+   */
+  @Query(value = "SELECT version FROM corpus_state WHERE id = 1", nativeQuery = true)
+  Long findCorpusVersion();
+
+  @Query(value = AUTOCOMPLETE_SUGGESTIONS, nativeQuery = true)
   java.util.List<Object[]> findAutocompleteSuggestions(
       @Param("query") String query,
       @Param("types") String[] types,
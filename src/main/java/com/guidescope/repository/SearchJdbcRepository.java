@@ -0,0 +1,301 @@
+package com.guidescope.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.search.QueryShape;
+import com.guidescope.search.SearchCriteria;
+import com.guidescope.search.SearchCursor;
+import com.guidescope.search.SearchField;
+import com.guidescope.search.SearchMetrics;
+import com.guidescope.search.SearchSlice;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.support.AbstractSqlTypeValue;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * SearchJdbcRepository runs the search, count and facet queries over plain
+ * JDBC.
+ *
+ * Implementation Details:
+ * - Statements are specialized per request shape by SearchSql (slug > exact
+ * title > websearch/prefix FTS rank, then year DESC, id) and built once per
+ * shape and projection; the most used STATEMENT_CACHE_SIZE of them are kept
+ * (fields= alone allows 1024 projections per shape)
+ * - Rows are mapped straight from the ResultSet by SearchResultRowMapper, with
+ * no intermediate Object[] rows
+ * - Time spent mapping rows of a page is recorded as the "map" search stage
+ * - Only the columns of the requested projection (SearchCriteria.fields) are
+ * selected
+ * - Exports stream through a server-side cursor (fetch size 500) and must be
+ * consumed inside a transaction
+ * - explain* re-run a page or autocomplete lookup under EXPLAIN (ANALYZE,
+ * BUFFERS) for SlowQueryProfiler; they execute the query, so they are only
+ * used on sampled slow requests
+ */
+@Repository
+public class SearchJdbcRepository {
+
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+    private static final String EXPLAIN = "EXPLAIN (ANALYZE, BUFFERS) ";
+    private static final Pattern PLAN_ROWS = Pattern.compile("\\brows=(\\d+)");
+    private static final int STATEMENT_CACHE_SIZE = 1024;
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final NamedParameterJdbcTemplate streamingJdbc;
+    private final NamedParameterJdbcTemplate explainJdbc;
+    private final Cache<StatementKey, Statements> statements = Caffeine.newBuilder()
+            .maximumSize(STATEMENT_CACHE_SIZE)
+            .build();
+    private final SearchMetrics searchMetrics;
+
+    public SearchJdbcRepository(DataSource dataSource, SearchMetrics searchMetrics) {
+        this.searchMetrics = searchMetrics;
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(STREAM_FETCH_SIZE);
+        this.streamingJdbc = new NamedParameterJdbcTemplate(streaming);
+        JdbcTemplate explain = new JdbcTemplate(dataSource);
+        explain.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+        this.explainJdbc = new NamedParameterJdbcTemplate(explain);
+    }
+
+    /**
+     * One offset page in ranking order.
+     */
+    public List<SearchResultDTO> search(SearchCriteria criteria, long offset, int limit) {
+        Statements statement = statements(criteria);
+        MapSqlParameterSource parameters = parameters(criteria)
+                .addValue("offset", offset, Types.BIGINT)
+                .addValue("limit", limit, Types.INTEGER);
+        SearchResultRowMapper mapper = statement.mapper();
+        ResultSetExtractor<List<SearchResultDTO>> extractor = rs -> {
+            List<SearchResultDTO> page = new ArrayList<>(limit);
+            long mapNanos = 0;
+            while (rs.next()) {
+                long start = System.nanoTime();
+                page.add(mapper.mapRow(rs, page.size()));
+                mapNanos += System.nanoTime() - start;
+            }
+            recordMapping(criteria, mapNanos);
+            return page;
+        };
+        return jdbc.query(statement.page(), parameters, extractor);
+    }
+
+    /**
+     * Up to limit rows sorting strictly after the cursor (from the first row
+     * when after is null), plus the cursor of the next page if there is one.
+     */
+    public SearchSlice searchAfter(SearchCriteria criteria, SearchCursor after, int limit) {
+        Statements statement = statements(criteria);
+        SearchResultRowMapper mapper = statement.mapper();
+        MapSqlParameterSource parameters = afterParameters(criteria, after, limit);
+
+        ResultSetExtractor<SearchSlice> extractor = rs -> {
+            List<SearchResultDTO> page = new ArrayList<>(limit);
+            SearchCursor last = null;
+            long mapNanos = 0;
+            while (rs.next()) {
+                if (page.size() == limit) {
+                    recordMapping(criteria, mapNanos);
+                    return new SearchSlice(page, last);
+                }
+                long start = System.nanoTime();
+                page.add(mapper.mapRow(rs, page.size()));
+                last = mapper.cursor(rs);
+                mapNanos += System.nanoTime() - start;
+            }
+            recordMapping(criteria, mapNanos);
+            return new SearchSlice(page, null);
+        };
+        return jdbc.query(statement.after(), parameters, extractor);
+    }
+
+    /**
+     * Exact number of matches.
+     */
+    public long count(SearchCriteria criteria) {
+        return jdbc.queryForObject(sql(criteria).count(), parameters(criteria), Long.class);
+    }
+
+    /**
+     * Number of matches, counting at most limit rows.
+     */
+    public long countUpTo(SearchCriteria criteria, long limit) {
+        MapSqlParameterSource parameters = parameters(criteria).addValue("limit", limit, Types.BIGINT);
+        return jdbc.queryForObject(sql(criteria).countUpTo(), parameters, Long.class);
+    }
+
+    /**
+     * The planner's estimate of the number of matches, read from the plan of
+     * the match scan (column statistics, no table or index access). -1 when
+     * the plan carries no estimate.
+     */
+    public long countEstimate(SearchCriteria criteria) {
+        List<String> plan = jdbc.queryForList(sql(criteria).countEstimate(), parameters(criteria), String.class);
+        if (plan.isEmpty()) {
+            return -1;
+        }
+        Matcher rows = PLAN_ROWS.matcher(plan.get(0));
+        return rows.find() ? Long.parseLong(rows.group(1)) : -1;
+    }
+
+    /**
+     * Per-value facet counts of the matches, counted by the database so only
+     * one row per facet value is transferred. Values without matches are not
+     * listed (see FacetIndex.complete).
+     */
+    public SearchFacetsDTO facets(SearchCriteria criteria) {
+        ResultSetExtractor<SearchFacetsDTO> extractor = rs -> {
+            SearchFacetsDTO facets = new SearchFacetsDTO(0, new HashMap<>(), new HashMap<>(), new HashMap<>(),
+                    new HashMap<>());
+            while (rs.next()) {
+                String value = rs.getString(2);
+                int year = rs.getInt(3);
+                boolean hasYear = !rs.wasNull();
+                long matches = rs.getLong(4);
+                switch (rs.getString(1)) {
+                    case "type" -> putCount(facets.getTypes(), value, matches);
+                    case "region" -> putCount(facets.getRegions(), value, matches);
+                    case "field" -> putCount(facets.getFields(), value, matches);
+                    case "year" -> putCount(facets.getYears(), hasYear ? year : null, matches);
+                    default -> facets.setTotal(matches);
+                }
+            }
+            return facets;
+        };
+        return jdbc.query(sql(criteria).facets(), parameters(criteria), extractor);
+    }
+
+    /**
+     * Every match in ranking order. The caller must close the stream.
+     */
+    public Stream<SearchResultDTO> stream(SearchCriteria criteria) {
+        Statements statement = statements(criteria);
+        return streamingJdbc.queryForStream(statement.all(), parameters(criteria), statement.mapper());
+    }
+
+    /**
+     * Plan of the offset page query, one line per element.
+     */
+    public List<String> explainPage(SearchCriteria criteria, long offset, int limit) {
+        MapSqlParameterSource parameters = parameters(criteria)
+                .addValue("offset", offset, Types.BIGINT)
+                .addValue("limit", limit, Types.INTEGER);
+        return explainJdbc.queryForList(EXPLAIN + statements(criteria).page(), parameters, String.class);
+    }
+
+    /**
+     * Plan of the keyset page query, one line per element.
+     */
+    public List<String> explainAfter(SearchCriteria criteria, SearchCursor after, int limit) {
+        return explainJdbc.queryForList(EXPLAIN + statements(criteria).after(),
+                afterParameters(criteria, after, limit), String.class);
+    }
+
+    /**
+     * Plan of DocumentRepository.findAutocompleteSuggestions, one line per
+     * element.
+     */
+    public List<String> explainAutocomplete(SearchCriteria criteria) {
+        // The autocomplete query matches on the normalized text
+        MapSqlParameterSource parameters = parameters(criteria)
+                .addValue("query", criteria.getNormalizedQuery(), Types.VARCHAR);
+        return explainJdbc.queryForList(EXPLAIN + DocumentRepository.AUTOCOMPLETE_SUGGESTIONS, parameters,
+                String.class);
+    }
+
+    private static <K> void putCount(Map<K, Long> counts, K value, long matches) {
+        if (value != null) {
+            counts.put(value, matches);
+        }
+    }
+
+    private void recordMapping(SearchCriteria criteria, long nanos) {
+        searchMetrics.record(SearchMetrics.Operation.SEARCH, SearchMetrics.Stage.MAP, QueryShape.of(criteria), nanos);
+    }
+
+    private SearchSql sql(SearchCriteria criteria) {
+        return SearchSql.of(SearchSql.shapeOf(criteria));
+    }
+
+    private Statements statements(SearchCriteria criteria) {
+        SearchSql sql = sql(criteria);
+        return statements.get(new StatementKey(sql.shape(), criteria.resultFields()),
+                key -> Statements.of(sql, key.fields()));
+    }
+
+    private static MapSqlParameterSource afterParameters(SearchCriteria criteria, SearchCursor after, int limit) {
+        // Fetch one extra row to learn whether a next page exists
+        return parameters(criteria)
+                .addValue("after_score", (after != null) ? after.getScore() : null, Types.DOUBLE)
+                .addValue("after_year", (after != null) ? after.getYear() : null, Types.INTEGER)
+                .addValue("after_id", (after != null) ? after.getId() : null, Types.OTHER)
+                .addValue("limit", limit + 1, Types.INTEGER);
+    }
+
+    private static MapSqlParameterSource parameters(SearchCriteria criteria) {
+        String[] types = criteria.getTypes();
+        return new MapSqlParameterSource()
+                .addValue("query", criteria.getQuery(), Types.VARCHAR)
+                .addValue("prefixQuery", criteria.getPrefixQuery(), Types.VARCHAR)
+                .addValue("slug", criteria.getSlug(), Types.VARCHAR)
+                .addValue("types", (types != null && types.length > 0) ? new TextArray(types) : null, Types.ARRAY)
+                .addValue("region", criteria.getRegion(), Types.VARCHAR)
+                .addValue("field", criteria.getField(), Types.VARCHAR)
+                .addValue("year_from", criteria.getYearFrom(), Types.INTEGER)
+                .addValue("year_to", criteria.getYearTo(), Types.INTEGER);
+    }
+
+    private record StatementKey(int shape, Set<SearchField> fields) {
+    }
+
+    /**
+     * The SQL of one shape and projection, and its row mapper.
+     */
+    private record Statements(String page, String after, String all, SearchResultRowMapper mapper) {
+
+        static Statements of(SearchSql sql, Set<SearchField> fields) {
+            SearchResultRowMapper mapper = new SearchResultRowMapper(fields);
+            String columns = mapper.columns();
+            return new Statements(sql.page(columns), sql.after(columns), sql.all(columns), mapper);
+        }
+    }
+
+    /**
+     * A String[] bound as a PostgreSQL text[] (a bare array would be expanded
+     * into a value list by NamedParameterJdbcTemplate).
+     */
+    private static final class TextArray extends AbstractSqlTypeValue {
+
+        private final String[] values;
+
+        TextArray(String[] values) {
+            this.values = values;
+        }
+
+        @Override
+        protected Object createTypeValue(Connection connection, int sqlType, String typeName) throws SQLException {
+            return connection.createArrayOf("text", values);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.guidescope.repository;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.search.SearchCursor;
+import com.guidescope.search.SearchField;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * SearchResultRowMapper maps search rows straight from the ResultSet into
+ * SearchResultDTOs, reading only the projected columns. Results of a
+ * fields= projection are marked projected (see SearchResultDTO).
+ *
+ * Column layout (see columns()):
+ * id, the projected fields in SearchField order, score, sort_year
+ */
+public final class SearchResultRowMapper implements RowMapper<SearchResultDTO> {
+
+    private final SearchField[] fields;
+    private final boolean projected;
+    private final int scoreColumn;
+
+    public SearchResultRowMapper(Set<SearchField> fields) {
+        this.fields = fields.toArray(new SearchField[0]);
+        this.projected = this.fields.length < SearchField.ALL.size();
+        this.scoreColumn = this.fields.length + 2;
+    }
+
+    /**
+     * The select list up to (excluding) the score and sort_year columns.
+     */
+    public String columns() {
+        StringBuilder columns = new StringBuilder("id");
+        for (SearchField field : fields) {
+            columns.append(", ").append(field.column());
+        }
+        return columns.toString();
+    }
+
+    @Override
+    public SearchResultDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        SearchResultDTO.SearchResultDTOBuilder result = SearchResultDTO.builder()
+                .id(rs.getObject(1, UUID.class))
+                .projected(projected);
+        int column = 2;
+        for (SearchField field : fields) {
+            switch (field) {
+                case TYPE -> result.type(rs.getString(column));
+                case REGION -> result.region(rs.getString(column));
+                case FIELD -> result.field(rs.getString(column));
+                case TITLE -> result.title(rs.getString(column));
+                case YEAR -> {
+                    int year = rs.getInt(column);
+                    result.year(rs.wasNull() ? null : year);
+                }
+                case LINK -> result.link(rs.getString(column));
+                case AUTHORS -> result.authors(rs.getString(column));
+                case SOURCE -> result.source(rs.getString(column));
+                case CITATION -> result.citation(rs.getString(column));
+                case KEYWORDS -> result.keywords(keywords(rs.getArray(column)));
+            }
+            column++;
+        }
+        return result.build();
+    }
+
+    /**
+     * Keyset position of the current row.
+     */
+    public SearchCursor cursor(ResultSet rs) throws SQLException {
+        return new SearchCursor(rs.getDouble(scoreColumn), rs.getInt(scoreColumn + 1), rs.getObject(1, UUID.class));
+    }
+
+    private static String[] keywords(Array array) throws SQLException {
+        if (array == null) {
+            return null;
+        }
+        try {
+            return (String[]) array.getArray();
+        } finally {
+            array.free();
+        }
+    }
+}
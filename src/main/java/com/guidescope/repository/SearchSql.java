@@ -0,0 +1,314 @@
+package com.guidescope.repository;
+
+import com.guidescope.search.SearchCriteria;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SearchSql builds the search statements of one request shape: only the
+ * predicates and ranking terms the request actually uses are written out,
+ * instead of one catch-all statement where every absent input is disabled
+ * with "CAST(:x AS ...) IS NULL OR ...".
+ *
+ * Characteristics:
+ * - A shape is a bit set of the inputs present (slug, query, prefix query and
+ * each filter); see shapeOf()
+ * - Results, scores and order are the same as the catch-all form: a slug
+ * boosts its document (1000), an exact title scores 100, otherwise
+ * websearch rank * 2 + prefix rank; without a query every document passing
+ * the filters matches
+ * - Without a query or slug the score is constant, so rows are ordered by
+ * (year DESC, id) alone and can be read from idx_documents_year_id
+ * - A slug without a query only pins its document(s) in front of every
+ * filtered row. Those statements are the UNION ALL of a slug probe and the
+ * remaining rows, each ordered by (year DESC, id) and limited to the page,
+ * so only the page rows are sorted instead of the whole table
+ * - Text matches are plain GIN/btree disjunctions that PostgreSQL can answer
+ * with a BitmapOr; an empty prefix query is left out instead of being
+ * evaluated as an empty tsquery
+ * - Filters are bound with their SQL types, so they need no casts
+ * - The score is a double precision column, the type the keyset cursor is
+ * read (getDouble), encoded and compared back (:after_score) in, so the
+ * score of a row always equals the one in its cursor and ties at a page
+ * boundary are resolved by (year, id) instead of by float rounding
+ *
+ * There are 256 shapes; the SearchSql of each is built once, when the class
+ * is loaded.
+ */
+public final class SearchSql {
+
+    public static final int SLUG = 1;
+    public static final int QUERY = 1 << 1;
+    public static final int PREFIX = 1 << 2;
+    public static final int TYPES = 1 << 3;
+    public static final int REGION = 1 << 4;
+    public static final int FIELD = 1 << 5;
+    public static final int YEAR_FROM = 1 << 6;
+    public static final int YEAR_TO = 1 << 7;
+
+    private static final SearchSql[] SHAPES = new SearchSql[YEAR_TO << 1];
+
+    private static final String AFTER = """
+            WHERE
+              CAST(:after_score AS double precision) IS NULL
+              OR score < CAST(:after_score AS double precision)
+              OR (score = CAST(:after_score AS double precision) AND (
+                sort_year < CAST(:after_year AS integer)
+                OR (sort_year = CAST(:after_year AS integer) AND id > CAST(:after_id AS uuid))
+              ))
+            ORDER BY
+              score DESC,
+              sort_year DESC,
+              id
+            LIMIT :limit""";
+
+    static {
+        for (int shape = 0; shape < SHAPES.length; shape++) {
+            SHAPES[shape] = new SearchSql(shape);
+        }
+    }
+
+    private static final String PINNED_ORDER = "ORDER BY score DESC, sort_year DESC, id";
+
+    private final int shape;
+    private final boolean pinned;
+    private final String score;
+    private final String where;
+    private final String order;
+
+    private SearchSql(int shape) {
+        this.shape = shape;
+        this.pinned = has(shape, SLUG) && !has(shape, QUERY);
+        this.score = score(shape);
+        this.where = where(shape);
+        this.order = pinned ? PINNED_ORDER
+                : has(shape, QUERY) ? "ORDER BY score DESC, year DESC, id"
+                : "ORDER BY year DESC, id";
+    }
+
+    public static SearchSql of(int shape) {
+        return SHAPES[shape];
+    }
+
+    /**
+     * The shape of a request: which of its inputs are present.
+     */
+    public static int shapeOf(SearchCriteria criteria) {
+        int shape = 0;
+        if (criteria.hasSlug()) {
+            shape |= SLUG;
+        }
+        if (criteria.getQuery() != null && !criteria.getQuery().isEmpty()) {
+            shape |= QUERY;
+            if (criteria.getPrefixQuery() != null && !criteria.getPrefixQuery().isEmpty()) {
+                shape |= PREFIX;
+            }
+        }
+        if (criteria.getTypes() != null && criteria.getTypes().length > 0) {
+            shape |= TYPES;
+        }
+        if (criteria.getRegion() != null) {
+            shape |= REGION;
+        }
+        if (criteria.getField() != null) {
+            shape |= FIELD;
+        }
+        if (criteria.getYearFrom() != null) {
+            shape |= YEAR_FROM;
+        }
+        if (criteria.getYearTo() != null) {
+            shape |= YEAR_TO;
+        }
+        return shape;
+    }
+
+    public int shape() {
+        return shape;
+    }
+
+    /**
+     * Ranked rows: columns, then score and sort_year (see
+     * SearchResultRowMapper), without ORDER BY.
+     */
+    public String select(String columns) {
+        if (pinned) {
+            return "SELECT * FROM (\n" + slugRows(columns) + "\nUNION ALL\n" + otherRows(columns) + "\n) pinned";
+        }
+        return "SELECT " + columns + ",\n" + score + " AS score,\nyear AS sort_year\nFROM documents" + where;
+    }
+
+    /**
+     * One offset page (:limit, :offset).
+     */
+    public String page(String columns) {
+        if (pinned) {
+            String first = "\nORDER BY year DESC, id\nLIMIT :limit + :offset)";
+            return "SELECT * FROM (\n(" + slugRows(columns) + first + "\nUNION ALL\n(" + otherRows(columns) + first
+                    + "\n) pinned\n" + PINNED_ORDER + "\nLIMIT :limit OFFSET :offset";
+        }
+        return all(columns) + "\nLIMIT :limit OFFSET :offset";
+    }
+
+    /**
+     * Up to :limit rows after the (:after_score, :after_year, :after_id) key.
+     */
+    public String after(String columns) {
+        if (pinned) {
+            return "SELECT * FROM (\n(SELECT * FROM (\n" + slugRows(columns) + "\n) ranked\n" + AFTER
+                    + ")\nUNION ALL\n(SELECT * FROM (\n" + otherRows(columns) + "\n) ranked\n" + AFTER
+                    + ")\n) pinned\n" + PINNED_ORDER + "\nLIMIT :limit";
+        }
+        return "SELECT * FROM (\n" + select(columns) + "\n) ranked\n" + AFTER;
+    }
+
+    /**
+     * Every match in ranking order.
+     */
+    public String all(String columns) {
+        return select(columns) + "\n" + order;
+    }
+
+    public String count() {
+        return "SELECT COUNT(*) FROM documents" + where;
+    }
+
+    /**
+     * Match count capped at :limit rows.
+     */
+    public String countUpTo() {
+        return "SELECT COUNT(*) FROM (\nSELECT 1 FROM documents" + where + "\nLIMIT :limit\n) capped";
+    }
+
+    /**
+     * Plan (without ANALYZE) of the match scan; the rows= estimate of its
+     * first line is the planner's match count. Nothing is read from the table.
+     */
+    public String countEstimate() {
+        return "EXPLAIN " + ids();
+    }
+
+    /**
+     * Ids of every match, unranked.
+     */
+    public String ids() {
+        return "SELECT id FROM documents" + where;
+    }
+
+    /**
+     * Facet counts as (dimension, value, year, matches) rows: the text
+     * matches are scanned once, then each dimension (type, region, field,
+     * year) is grouped under the filters of the other dimensions only, and a
+     * single "total" row applies every filter.
+     */
+    public String facets() {
+        String text = textCondition(shape);
+        return "WITH matched AS MATERIALIZED (\nSELECT type, region, field, year FROM documents"
+                + whereOf((text != null) ? List.of(text) : List.of()) + "\n)\n"
+                + facet("type", "type", "CAST(NULL AS integer)", TYPES) + "\nUNION ALL\n"
+                + facet("region", "region", "CAST(NULL AS integer)", REGION) + "\nUNION ALL\n"
+                + facet("field", "field", "CAST(NULL AS integer)", FIELD) + "\nUNION ALL\n"
+                + facet("year", "CAST(NULL AS text)", "year", YEAR_FROM | YEAR_TO) + "\nUNION ALL\n"
+                + "SELECT 'total', CAST(NULL AS text), CAST(NULL AS integer), COUNT(*) FROM matched"
+                + whereOf(filterConditions(shape));
+    }
+
+    /**
+     * Rows of the slug, scored 1000, read through idx_documents_slug.
+     */
+    private String slugRows(String columns) {
+        List<String> conditions = new ArrayList<>(6);
+        conditions.add("slug = :slug");
+        conditions.addAll(filterConditions(shape));
+        return "SELECT " + columns + ",\nCAST(1000.0 AS double precision) AS score,\nyear AS sort_year\nFROM documents"
+                + whereOf(conditions);
+    }
+
+    /**
+     * Every other filtered row, scored 0.
+     */
+    private String otherRows(String columns) {
+        List<String> conditions = new ArrayList<>(6);
+        conditions.add("slug <> :slug");
+        conditions.addAll(filterConditions(shape));
+        return "SELECT " + columns + ",\nCAST(0 AS double precision) AS score,\nyear AS sort_year\nFROM documents"
+                + whereOf(conditions);
+    }
+
+    private String facet(String dimension, String value, String year, int ownFilter) {
+        return "SELECT '" + dimension + "' AS dimension, " + value + " AS value, " + year + " AS year, "
+                + "COUNT(*) AS matches FROM matched" + whereOf(filterConditions(shape & ~ownFilter))
+                + "\nGROUP BY " + dimension;
+    }
+
+    private static String score(int shape) {
+        if (!has(shape, QUERY)) {
+            // A slug without a query is scored by slugRows/otherRows
+            return "CAST(0 AS double precision)";
+        }
+        StringBuilder score = new StringBuilder("CAST(CASE\n");
+        if (has(shape, SLUG)) {
+            score.append("  WHEN slug = :slug THEN 1000.0\n");
+        }
+        score.append("  WHEN lower(title) = lower(:query) THEN 100.0\n")
+                .append("  ELSE COALESCE(ts_rank(search_vector, websearch_to_tsquery('english', :query)), 0) * 2");
+        if (has(shape, PREFIX)) {
+            score.append("\n    + COALESCE(ts_rank(search_vector, to_tsquery('english', :prefixQuery)), 0)");
+        }
+        return score.append("\nEND AS double precision)").toString();
+    }
+
+    private static String where(int shape) {
+        List<String> conditions = new ArrayList<>(6);
+        String text = textCondition(shape);
+        if (text != null) {
+            conditions.add(text);
+        }
+        conditions.addAll(filterConditions(shape));
+        return whereOf(conditions);
+    }
+
+    private static String textCondition(int shape) {
+        if (!has(shape, QUERY)) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder("(");
+        if (has(shape, SLUG)) {
+            text.append("slug = :slug OR ");
+        }
+        text.append("lower(title) = lower(:query)")
+                .append(" OR search_vector @@ websearch_to_tsquery('english', :query)");
+        if (has(shape, PREFIX)) {
+            text.append(" OR search_vector @@ to_tsquery('english', :prefixQuery)");
+        }
+        return text.append(')').toString();
+    }
+
+    private static List<String> filterConditions(int shape) {
+        List<String> conditions = new ArrayList<>(5);
+        if (has(shape, TYPES)) {
+            conditions.add("type = ANY(:types)");
+        }
+        if (has(shape, REGION)) {
+            conditions.add("region = :region");
+        }
+        if (has(shape, FIELD)) {
+            conditions.add("field = :field");
+        }
+        if (has(shape, YEAR_FROM)) {
+            conditions.add("year >= :year_from");
+        }
+        if (has(shape, YEAR_TO)) {
+            conditions.add("year <= :year_to");
+        }
+        return conditions;
+    }
+
+    private static String whereOf(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "\nWHERE " + String.join("\n  AND ", conditions);
+    }
+
+    private static boolean has(int shape, int input) {
+        return (shape & input) != 0;
+    }
+}
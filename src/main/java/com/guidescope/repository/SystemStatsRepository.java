@@ -4,6 +4,7 @@ import com.guidescope.model.SystemStats;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,13 +15,13 @@ import org.springframework.transaction.annotation.Transactional;
 @Repository
 public interface SystemStatsRepository extends JpaRepository<SystemStats, Long> {
 
+    /**
+     * Adds a batch of counts to the singleton row. Applied as a relative
+     * increment so concurrent flushes from several nodes never overwrite each
+     * other.
+     */
     @Modifying
     @Transactional(propagation = Propagation.REQUIRES_NEW)
-    @Query("UPDATE SystemStats s SET s.visitCount = s.visitCount + 1 WHERE s.id = 1")
-    void incrementVisitCount();
-
-    @Modifying
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    @Query("UPDATE SystemStats s SET s.searchCount = s.searchCount + 1 WHERE s.id = 1")
-    void incrementSearchCount();
+    @Query("UPDATE SystemStats s SET s.visitCount = s.visitCount + :visits, s.searchCount = s.searchCount + :searches WHERE s.id = 1")
+    int addCounts(@Param("visits") long visits, @Param("searches") long searches);
 }
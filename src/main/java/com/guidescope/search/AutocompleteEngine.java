@@ -0,0 +1,20 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.AutocompleteResponseDTO;
+
+import java.util.List;
+
+/**
+ * AutocompleteEngine is the pluggable execution backend behind
+ * SearchService.getAutocompleteSuggestions.
+ *
+ * Contract:
+ * - criteria.normalizedQuery holds the sanitized (lower-cased, alphanumeric)
+ * input; every token is matched as a prefix of a title word
+ * - Active type/region/field/year filters must be honoured
+ * - Returns at most limit distinct (title, slug) suggestions, best first
+ */
+public interface AutocompleteEngine {
+
+    List<AutocompleteResponseDTO.Suggestion> suggest(SearchCriteria criteria, int limit);
+}
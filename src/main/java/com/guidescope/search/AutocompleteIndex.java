@@ -0,0 +1,309 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.model.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * AutocompleteIndex is an immutable radix trie over title words.
+ *
+ * Layout:
+ * - Candidates are documents, numbered by suggestion rank (newest year first,
+ * then shortest title), so a lower ordinal is always a better suggestion
+ * - Every trie node keeps the TOP_K best candidates of its subtree, which
+ * answers unfiltered lookups without visiting the subtree
+ * - Filtered lookups that exhaust the precomputed top-k fall back to the full
+ * posting range of the node, intersected with the FilterPostings BitSets
+ *
+ * Matching: every query word must prefix a title word and the title must
+ * contain the whole sanitized query. Unlike
+ * DocumentRepository.findAutocompleteSuggestions, keywords are not matched
+ * and suggestion popularity is not used (see InMemoryAutocompleteEngine).
+ */
+final class AutocompleteIndex {
+
+    static final int TOP_K = 32;
+
+    private final String[] titles;
+    private final String[] lowerTitles;
+    private final String[] slugs;
+    private final String[][] titleTokens;
+    private final String[] tokens;
+    private final int[] tokenOffsets;
+    private final int[] tokenPostings;
+    private final FilterPostings filters;
+    private final Node root;
+
+    private AutocompleteIndex(List<Document> ranked) {
+        int size = ranked.size();
+        this.titles = new String[size];
+        this.lowerTitles = new String[size];
+        this.slugs = new String[size];
+        this.titleTokens = new String[size][];
+        this.filters = new FilterPostings();
+
+        TreeMap<String, List<Integer>> postings = new TreeMap<>();
+        for (int candidate = 0; candidate < size; candidate++) {
+            Document document = ranked.get(candidate);
+            titles[candidate] = document.getTitle();
+            lowerTitles[candidate] = document.getTitle().toLowerCase(Locale.ROOT);
+            slugs[candidate] = (document.getSlug() != null) ? document.getSlug() : "";
+            String[] words = new HashSet<>(QueryNormalizer.tokenize(document.getTitle())).toArray(new String[0]);
+            Arrays.sort(words);
+            titleTokens[candidate] = words;
+            for (String word : words) {
+                postings.computeIfAbsent(word, k -> new ArrayList<>()).add(candidate);
+            }
+            filters.add(candidate, document.getType(), document.getRegion(), document.getField(), document.getYear());
+        }
+
+        // Flatten the postings in token order (CSR layout)
+        this.tokens = postings.keySet().toArray(new String[0]);
+        this.tokenOffsets = new int[tokens.length + 1];
+        int total = 0;
+        for (int t = 0; t < tokens.length; t++) {
+            tokenOffsets[t] = total;
+            total += postings.get(tokens[t]).size();
+        }
+        tokenOffsets[tokens.length] = total;
+        this.tokenPostings = new int[total];
+        int position = 0;
+        for (Map.Entry<String, List<Integer>> entry : postings.entrySet()) {
+            for (int candidate : entry.getValue()) {
+                tokenPostings[position++] = candidate;
+            }
+        }
+
+        this.root = (tokens.length == 0) ? null : buildNode(0, tokens.length, 0);
+    }
+
+    /**
+     * Builds an index from the given documents. Documents without a title are
+     * not suggestible and are skipped.
+     */
+    static AutocompleteIndex build(List<Document> documents) {
+        List<Document> ranked = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            if (document.getTitle() != null && !document.getTitle().isBlank()) {
+                ranked.add(document);
+            }
+        }
+        ranked.sort(Comparator
+                .comparing(Document::getYear, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparingInt(document -> document.getTitle().length())
+                .thenComparing(Document::getTitle));
+        return new AutocompleteIndex(ranked);
+    }
+
+    int size() {
+        return titles.length;
+    }
+
+    int tokenCount() {
+        return tokens.length;
+    }
+
+    List<AutocompleteResponseDTO.Suggestion> suggest(SearchCriteria criteria, int limit) {
+        String sanitized = criteria.getNormalizedQuery();
+        List<String> queryTerms = new ArrayList<>();
+        for (String token : criteria.queryTokens()) {
+            if (!InvertedIndex.STOP_WORDS.contains(token) && !queryTerms.contains(token)) {
+                queryTerms.add(token);
+            }
+        }
+        if (queryTerms.isEmpty() || root == null) {
+            return List.of();
+        }
+
+        // Drive the lookup with the longest (most selective) word
+        String driver = queryTerms.get(0);
+        for (String term : queryTerms) {
+            if (term.length() > driver.length()) {
+                driver = term;
+            }
+        }
+        Node node = find(driver);
+        if (node == null) {
+            return List.of();
+        }
+
+        BitSet filter = criteria.hasFilters() ? filters.select(criteria) : null;
+        Collector collector = new Collector(sanitized, queryTerms, filter, limit);
+
+        for (int candidate : node.top) {
+            if (collector.offer(candidate)) {
+                return collector.suggestions;
+            }
+        }
+        if (node.complete) {
+            return collector.suggestions;
+        }
+
+        // The precomputed top-k was not enough: scan the node's whole posting range
+        BitSet hits = new BitSet(titles.length);
+        for (int p = tokenOffsets[node.tokenFrom]; p < tokenOffsets[node.tokenTo]; p++) {
+            hits.set(tokenPostings[p]);
+        }
+        if (filter != null) {
+            hits.and(filter);
+        }
+        for (int candidate = hits.nextSetBit(0); candidate >= 0; candidate = hits.nextSetBit(candidate + 1)) {
+            if (collector.offer(candidate)) {
+                break;
+            }
+        }
+        return collector.suggestions;
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int position = 0;
+        while (true) {
+            String label = node.label;
+            for (int i = 0; i < label.length() && position < prefix.length(); i++, position++) {
+                if (label.charAt(i) != prefix.charAt(position)) {
+                    return null;
+                }
+            }
+            if (position == prefix.length()) {
+                return node;
+            }
+            int child = Arrays.binarySearch(node.childKeys, prefix.charAt(position));
+            if (child < 0) {
+                return null;
+            }
+            node = node.children[child];
+        }
+    }
+
+    /**
+     * Builds the node covering tokens[from, to), which all share their first
+     * depth characters.
+     */
+    private Node buildNode(int from, int to, int depth) {
+        String first = tokens[from];
+        String last = tokens[to - 1];
+        int common = depth;
+        while (common < first.length() && common < last.length() && first.charAt(common) == last.charAt(common)) {
+            common++;
+        }
+
+        List<Node> children = new ArrayList<>();
+        int childFrom = (first.length() == common) ? from + 1 : from;
+        for (int i = childFrom; i < to;) {
+            char key = tokens[i].charAt(common);
+            int j = i + 1;
+            while (j < to && tokens[j].charAt(common) == key) {
+                j++;
+            }
+            children.add(buildNode(i, j, common));
+            i = j;
+        }
+
+        // Merge the best candidates of the terminal token and of every child
+        int[] merged = new int[0];
+        if (childFrom > from) {
+            int start = tokenOffsets[from];
+            int end = Math.min(tokenOffsets[from + 1], start + TOP_K);
+            merged = Arrays.copyOfRange(tokenPostings, start, end);
+        }
+        for (Node child : children) {
+            int length = merged.length;
+            merged = Arrays.copyOf(merged, length + child.top.length);
+            System.arraycopy(child.top, 0, merged, length, child.top.length);
+        }
+        int[] top = Arrays.stream(merged).sorted().distinct().limit(TOP_K).toArray();
+
+        char[] childKeys = new char[children.size()];
+        for (int i = 0; i < childKeys.length; i++) {
+            childKeys[i] = children.get(i).label.charAt(0);
+        }
+
+        // The top-k is complete when the subtree holds no more distinct candidates
+        boolean complete = top.length < TOP_K
+                || tokenOffsets[to] - tokenOffsets[from] == top.length;
+
+        return new Node(first.substring(depth, common), childKeys, children.toArray(new Node[0]),
+                from, to, top, complete);
+    }
+
+    private static final class Node {
+        final String label;
+        final char[] childKeys;
+        final Node[] children;
+        final int tokenFrom;
+        final int tokenTo;
+        final int[] top;
+        final boolean complete;
+
+        Node(String label, char[] childKeys, Node[] children, int tokenFrom, int tokenTo, int[] top,
+                boolean complete) {
+            this.label = label;
+            this.childKeys = childKeys;
+            this.children = children;
+            this.tokenFrom = tokenFrom;
+            this.tokenTo = tokenTo;
+            this.top = top;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * Verifies candidates against the full query and collects distinct
+     * (title, slug) suggestions until the limit is reached.
+     */
+    private final class Collector {
+        final String sanitized;
+        final List<String> queryTerms;
+        final BitSet filter;
+        final int limit;
+        final List<AutocompleteResponseDTO.Suggestion> suggestions = new ArrayList<>();
+        final Set<String> seen = new HashSet<>();
+
+        Collector(String sanitized, List<String> queryTerms, BitSet filter, int limit) {
+            this.sanitized = sanitized;
+            this.queryTerms = queryTerms;
+            this.filter = filter;
+            this.limit = limit;
+        }
+
+        /**
+         * @return true once the limit has been reached
+         */
+        boolean offer(int candidate) {
+            if (filter != null && !filter.get(candidate)) {
+                return false;
+            }
+            if (!lowerTitles[candidate].contains(sanitized) || !prefixesAll(titleTokens[candidate])) {
+                return false;
+            }
+            if (seen.add(titles[candidate] + '\u0000' + slugs[candidate])) {
+                suggestions.add(new AutocompleteResponseDTO.Suggestion(titles[candidate], slugs[candidate]));
+            }
+            return suggestions.size() >= limit;
+        }
+
+        private boolean prefixesAll(String[] words) {
+            for (String term : queryTerms) {
+                int position = Arrays.binarySearch(words, term);
+                if (position < 0) {
+                    position = -position - 1;
+                    if (position >= words.length || !words[position].startsWith(term)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchFacetsDTO;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * FacetIndex keeps one compressed (Roaring) bitmap of document ordinals per
+ * facet value, so facet counts are bitmap intersections instead of GROUP BY
+ * queries.
+ *
+ * Counting rules:
+ * - Each dimension is counted against the query matches and the filters of
+ * the other dimensions, but not its own, so every value shows how many results
+ * selecting it would give (multi-select facets)
+ * - Years are a histogram over all years; year_from/year_to narrow the other
+ * dimensions only
+ * - Every known value is returned, including zero counts
+ *
+ * Immutable once built; rebuilt and swapped as a whole on corpus changes.
+ */
+public final class FacetIndex {
+
+    private final int size;
+    private final Map<UUID, Integer> ordinals;
+    private final NavigableMap<String, RoaringBitmap> byType;
+    private final NavigableMap<String, RoaringBitmap> byRegion;
+    private final NavigableMap<String, RoaringBitmap> byField;
+    private final NavigableMap<Integer, RoaringBitmap> byYear;
+
+    private FacetIndex(int size, Map<UUID, Integer> ordinals,
+            NavigableMap<String, RoaringBitmap> byType, NavigableMap<String, RoaringBitmap> byRegion,
+            NavigableMap<String, RoaringBitmap> byField, NavigableMap<Integer, RoaringBitmap> byYear) {
+        this.size = size;
+        this.ordinals = ordinals;
+        this.byType = byType;
+        this.byRegion = byRegion;
+        this.byField = byField;
+        this.byYear = byYear;
+    }
+
+    /**
+     * Builds the index from DocumentRepository.findFacetRows() rows
+     * (0:id, 1:type, 2:region, 3:field, 4:year).
+     */
+    public static FacetIndex build(List<Object[]> rows) {
+        Map<UUID, Integer> ordinals = new HashMap<>(rows.size() * 2);
+        NavigableMap<String, RoaringBitmap> byType = new TreeMap<>();
+        NavigableMap<String, RoaringBitmap> byRegion = new TreeMap<>();
+        NavigableMap<String, RoaringBitmap> byField = new TreeMap<>();
+        NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+
+        int ordinal = 0;
+        for (Object[] row : rows) {
+            ordinals.put((UUID) row[0], ordinal);
+            add(byType, (String) row[1], ordinal);
+            add(byRegion, (String) row[2], ordinal);
+            add(byField, (String) row[3], ordinal);
+            if (row[4] != null) {
+                add(byYear, ((Number) row[4]).intValue(), ordinal);
+            }
+            ordinal++;
+        }
+
+        for (Map<?, RoaringBitmap> postings : List.of(byType, byRegion, byField, byYear)) {
+            postings.values().forEach(RoaringBitmap::runOptimize);
+        }
+        return new FacetIndex(ordinal, ordinals, byType, byRegion, byField, byYear);
+    }
+
+    private static <K> void add(Map<K, RoaringBitmap> postings, K value, int ordinal) {
+        if (value != null) {
+            postings.computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Maps document ids to ordinals; ids unknown to this index are skipped.
+     */
+    public RoaringBitmap ordinalsOf(Collection<UUID> ids) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (UUID id : ids) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                bitmap.add(ordinal.intValue());
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * Counts the facets of the criteria filters intersected with matches
+     * (null meaning every document).
+     */
+    public SearchFacetsDTO count(RoaringBitmap matches, SearchCriteria criteria) {
+        RoaringBitmap types = selectTypes(criteria.getTypes());
+        RoaringBitmap region = select(byRegion, criteria.getRegion());
+        RoaringBitmap field = select(byField, criteria.getField());
+        RoaringBitmap years = selectYears(criteria.getYearFrom(), criteria.getYearTo());
+
+        RoaringBitmap all = and(matches, types, region, field, years);
+        return SearchFacetsDTO.builder()
+                .total((all != null) ? all.getLongCardinality() : size)
+                .types(counts(byType, and(matches, region, field, years)))
+                .regions(counts(byRegion, and(matches, types, field, years)))
+                .fields(counts(byField, and(matches, types, region, years)))
+                .years(counts(byYear, and(matches, types, region, field)))
+                .build();
+    }
+
+    /**
+     * Adds every value of this index missing from counts made elsewhere (e.g.
+     * by the database) with a zero count, in the same order as count().
+     */
+    public SearchFacetsDTO complete(SearchFacetsDTO counted) {
+        return SearchFacetsDTO.builder()
+                .total(counted.getTotal())
+                .types(complete(byType, counted.getTypes()))
+                .regions(complete(byRegion, counted.getRegions()))
+                .fields(complete(byField, counted.getFields()))
+                .years(complete(byYear, counted.getYears()))
+                .build();
+    }
+
+    private static <K> Map<K, Long> complete(NavigableMap<K, RoaringBitmap> postings, Map<K, Long> counted) {
+        NavigableMap<K, Long> all = new TreeMap<>();
+        for (K value : postings.keySet()) {
+            all.put(value, 0L);
+        }
+        all.putAll(counted);
+        return new LinkedHashMap<>(all);
+    }
+
+    private RoaringBitmap selectTypes(String[] types) {
+        if (types == null || types.length == 0) {
+            return null;
+        }
+        RoaringBitmap union = new RoaringBitmap();
+        for (String type : types) {
+            RoaringBitmap postings = byType.get(type);
+            if (postings != null) {
+                union.or(postings);
+            }
+        }
+        return union;
+    }
+
+    private RoaringBitmap selectYears(Integer yearFrom, Integer yearTo) {
+        if (yearFrom == null && yearTo == null) {
+            return null;
+        }
+        int from = (yearFrom != null) ? yearFrom : Integer.MIN_VALUE;
+        int to = (yearTo != null) ? yearTo : Integer.MAX_VALUE;
+        if (from > to) {
+            return new RoaringBitmap();
+        }
+        return RoaringBitmap.or(byYear.subMap(from, true, to, true).values().iterator());
+    }
+
+    private static RoaringBitmap select(Map<String, RoaringBitmap> postings, String value) {
+        if (value == null) {
+            return null;
+        }
+        RoaringBitmap bitmap = postings.get(value);
+        return (bitmap != null) ? bitmap : new RoaringBitmap();
+    }
+
+    /**
+     * Intersects the non-null bitmaps; null when there is nothing to intersect.
+     * The shared postings are never modified.
+     */
+    private static RoaringBitmap and(RoaringBitmap... bitmaps) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                result = (result == null) ? bitmap : RoaringBitmap.and(result, bitmap);
+            }
+        }
+        return result;
+    }
+
+    private static <K> Map<K, Long> counts(NavigableMap<K, RoaringBitmap> postings, RoaringBitmap base) {
+        Map<K, Long> counts = new LinkedHashMap<>();
+        for (Map.Entry<K, RoaringBitmap> entry : postings.entrySet()) {
+            long count = (base == null)
+                    ? entry.getValue().getLongCardinality()
+                    : RoaringBitmap.andCardinality(base, entry.getValue());
+            counts.put(entry.getKey(), count);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,77 @@
+package com.guidescope.search;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * FilterPostings holds one BitSet of ordinals per type, region, field and year
+ * value so the search filters can be evaluated with bitwise AND/OR instead of
+ * per-row comparisons.
+ *
+ * Populated while an index is being built, read-only afterwards.
+ */
+final class FilterPostings {
+
+    private final Map<String, BitSet> byType = new HashMap<>();
+    private final Map<String, BitSet> byRegion = new HashMap<>();
+    private final Map<String, BitSet> byField = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+    private int size;
+
+    void add(int ordinal, String type, String region, String field, Integer year) {
+        mark(byType, type, ordinal);
+        mark(byRegion, region, ordinal);
+        mark(byField, field, ordinal);
+        if (year != null) {
+            byYear.computeIfAbsent(year, k -> new BitSet()).set(ordinal);
+        }
+        size = Math.max(size, ordinal + 1);
+    }
+
+    /**
+     * Returns the ordinals passing every active filter of the criteria (all
+     * ordinals when no filter is active). The result is a fresh, mutable copy.
+     */
+    BitSet select(SearchCriteria criteria) {
+        BitSet filter = new BitSet(size);
+        filter.set(0, size);
+
+        if (criteria.getTypes() != null && criteria.getTypes().length > 0) {
+            BitSet anyType = new BitSet();
+            for (String type : criteria.getTypes()) {
+                BitSet byTypeValue = byType.get(type);
+                if (byTypeValue != null) {
+                    anyType.or(byTypeValue);
+                }
+            }
+            filter.and(anyType);
+        }
+        if (criteria.getRegion() != null) {
+            filter.and(byRegion.getOrDefault(criteria.getRegion(), new BitSet()));
+        }
+        if (criteria.getField() != null) {
+            filter.and(byField.getOrDefault(criteria.getField(), new BitSet()));
+        }
+        if (criteria.getYearFrom() != null || criteria.getYearTo() != null) {
+            int from = (criteria.getYearFrom() != null) ? criteria.getYearFrom() : Integer.MIN_VALUE;
+            int to = (criteria.getYearTo() != null) ? criteria.getYearTo() : Integer.MAX_VALUE;
+            BitSet inRange = new BitSet();
+            if (from <= to) {
+                for (BitSet byYearValue : byYear.subMap(from, true, to, true).values()) {
+                    inRange.or(byYearValue);
+                }
+            }
+            filter.and(inRange);
+        }
+        return filter;
+    }
+
+    private static void mark(Map<String, BitSet> postings, String value, int ordinal) {
+        if (value != null) {
+            postings.computeIfAbsent(value, k -> new BitSet()).set(ordinal);
+        }
+    }
+}
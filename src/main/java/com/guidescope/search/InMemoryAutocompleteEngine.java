@@ -0,0 +1,88 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.model.Document;
+import com.guidescope.repository.DocumentRepository;
+import com.guidescope.service.CorpusChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * InMemoryAutocompleteEngine answers keystroke suggestions from an
+ * AutocompleteIndex without touching the connection pool.
+ *
+ * Lifecycle:
+ * - The index is built from the documents table once the application is ready
+ * and rebuilt on every CorpusChangedEvent
+ * - Until the index is available every lookup is delegated to
+ * PostgresAutocompleteEngine
+ *
+ * Suggestions differ from PostgresAutocompleteEngine: the trie matches title
+ * words only (no keyword phrases) and ranks newest and shortest titles first,
+ * without the popularity kept in autocomplete_suggestions. Both normalize
+ * words like QueryNormalizer.
+ *
+ * Enabled with app.search.autocomplete=memory; PostgreSQL is the default.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "app.search.autocomplete", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryAutocompleteEngine implements AutocompleteEngine {
+
+    private final DocumentRepository documentRepository;
+    private final PostgresAutocompleteEngine fallback;
+
+    private volatile AutocompleteIndex index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    // Rebuild before result caches are dropped (they listen at lowest precedence)
+    @EventListener(CorpusChangedEvent.class)
+    @Order(0)
+    public void onCorpusChanged() {
+        refresh();
+    }
+
+    /**
+     * Rebuilds the index from the documents table and swaps it in atomically.
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            List<Document> documents = documentRepository.findAll();
+            AutocompleteIndex rebuilt = AutocompleteIndex.build(documents);
+            index = rebuilt;
+            log.info("In-memory autocomplete index built: {} candidates, {} title words in {}ms",
+                    rebuilt.size(), rebuilt.tokenCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build in-memory autocomplete index, keeping previous state: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    @Override
+    public List<AutocompleteResponseDTO.Suggestion> suggest(SearchCriteria criteria, int limit) {
+        AutocompleteIndex current = index;
+        if (current == null) {
+            log.debug("In-memory autocomplete index not ready, falling back to PostgreSQL");
+            return fallback.suggest(criteria, limit);
+        }
+        return current.suggest(criteria, limit);
+    }
+}
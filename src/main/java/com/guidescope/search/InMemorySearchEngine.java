@@ -0,0 +1,133 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.model.Document;
+import com.guidescope.repository.DocumentRepository;
+import com.guidescope.service.CorpusChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * InMemorySearchEngine answers searches from an in-JVM InvertedIndex.
+ *
+ * Lifecycle:
+ * - The index is built from the documents table once the application is ready
+ * and rebuilt on every CorpusChangedEvent
+ * - Until the index is available (or if building it failed) every search is
+ * delegated to PostgresSearchEngine
+ *
+ * Enabled with app.search.engine=memory. Terms are matched as typed, without
+ * the stemming of the 'english' text search configuration, so a query can
+ * match fewer documents than on PostgresSearchEngine; it is opt-in for that
+ * reason.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "app.search.engine", havingValue = "memory")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemorySearchEngine implements SearchEngine {
+
+    private final DocumentRepository documentRepository;
+    private final PostgresSearchEngine fallback;
+
+    private volatile InvertedIndex index;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    // Rebuild before result caches are dropped (they listen at lowest precedence)
+    @EventListener(CorpusChangedEvent.class)
+    @Order(0)
+    public void onCorpusChanged() {
+        refresh();
+    }
+
+    /**
+     * Rebuilds the index from the documents table and swaps it in atomically.
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            List<Document> documents = documentRepository.findAll(Sort.by("id"));
+            InvertedIndex rebuilt = InvertedIndex.build(documents);
+            index = rebuilt;
+            log.info("In-memory search index built: {} documents, {} terms in {}ms",
+                    rebuilt.size(), rebuilt.termCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build in-memory search index, keeping previous state: {}", e.getMessage(), e);
+        }
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    @Override
+    public List<SearchResultDTO> search(SearchCriteria criteria, Pageable pageable) {
+        InvertedIndex current = index;
+        if (current == null) {
+            log.debug("In-memory search index not ready, falling back to PostgreSQL");
+            return fallback.search(criteria, pageable);
+        }
+        return current.search(criteria, pageable);
+    }
+
+    @Override
+    public SearchSlice searchAfter(SearchCriteria criteria, SearchCursor after, int limit) {
+        InvertedIndex current = index;
+        if (current == null) {
+            log.debug("In-memory search index not ready, falling back to PostgreSQL");
+            return fallback.searchAfter(criteria, after, limit);
+        }
+        return current.searchAfter(criteria, after, limit);
+    }
+
+    /**
+     * Counting a BitSet is cheap, so the in-memory total is always exact.
+     */
+    @Override
+    public SearchTotal count(SearchCriteria criteria, long exactThreshold) {
+        InvertedIndex current = index;
+        if (current == null) {
+            log.debug("In-memory search index not ready, falling back to PostgreSQL");
+            return fallback.count(criteria, exactThreshold);
+        }
+        return SearchTotal.exact(current.count(criteria));
+    }
+
+    /**
+     * Resolves the text matches in the inverted index and intersects them
+     * with the facet bitmaps; the filters are applied per dimension by the
+     * FacetIndex.
+     */
+    @Override
+    public SearchFacetsDTO facets(SearchCriteria criteria, FacetIndex facetIndex) {
+        InvertedIndex current = index;
+        if (current == null) {
+            log.debug("In-memory search index not ready, falling back to PostgreSQL");
+            return fallback.facets(criteria, facetIndex);
+        }
+        SearchCriteria textOnly = criteria.toBuilder()
+                .types(null)
+                .region(null)
+                .field(null)
+                .yearFrom(null)
+                .yearTo(null)
+                .build();
+        return facetIndex.count(facetIndex.ordinalsOf(current.matchIds(textOnly)), criteria);
+    }
+}
@@ -0,0 +1,416 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.model.Document;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * InvertedIndex is an immutable, in-heap snapshot of the documents table.
+ *
+ * Layout:
+ * - Documents are addressed by their position (ordinal) in id order
+ * - Terms are kept sorted so a prefix expands to a contiguous range
+ * - Each term owns a posting list of ordinals plus a per-document field weight
+ * - Type/Region/Field/Year (FilterPostings) and Slug filters are precomputed
+ * BitSets
+ *
+ * Ranking mirrors SearchJdbcRepository: slug match (1000), exact title
+ * match (100), otherwise 2 * exact-term rank + prefix-term rank, ties broken
+ * by year DESC and then id. Both offset and keyset (searchAfter) paging are
+ * supported.
+ */
+final class InvertedIndex {
+
+    // Same relative weights as ts_rank for setweight() A/B. search_vector only
+    // covers title and authors, so keywords are not indexed either
+    static final float WEIGHT_TITLE = 1.0f;
+    static final float WEIGHT_AUTHORS = 0.4f;
+
+    private static final float SCORE_SLUG = 1000f;
+    private static final float SCORE_EXACT_TITLE = 100f;
+
+    // Subset of the PostgreSQL 'english' stop words that appear in clinical queries
+    static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it",
+            "of", "on", "or", "the", "to", "with", "without", "vs", "versus");
+
+    private final SearchResultDTO[] docs;
+    private final int[] years;
+    private final String[] terms;
+    private final int[][] postings;
+    private final float[][] weights;
+    private final FilterPostings filters;
+    private final Map<String, BitSet> bySlug;
+    private final Map<String, BitSet> byTitle;
+
+    private InvertedIndex(Builder builder) {
+        int size = builder.docs.size();
+        this.docs = builder.docs.toArray(new SearchResultDTO[0]);
+        this.years = new int[size];
+        for (int i = 0; i < size; i++) {
+            Integer year = docs[i].getYear();
+            years[i] = (year != null) ? year : 0;
+        }
+        this.terms = builder.terms.keySet().toArray(new String[0]);
+        this.postings = new int[terms.length][];
+        this.weights = new float[terms.length][];
+        for (int t = 0; t < terms.length; t++) {
+            PostingBuilder posting = builder.terms.get(terms[t]);
+            postings[t] = Arrays.copyOf(posting.docs, posting.size);
+            weights[t] = Arrays.copyOf(posting.weights, posting.size);
+        }
+        this.filters = builder.filters;
+        this.bySlug = builder.bySlug;
+        this.byTitle = builder.byTitle;
+    }
+
+    /**
+     * Builds an index from documents ordered by id.
+     */
+    static InvertedIndex build(List<Document> documents) {
+        Builder builder = new Builder();
+        for (Document document : documents) {
+            builder.add(document);
+        }
+        return new InvertedIndex(builder);
+    }
+
+    int size() {
+        return docs.length;
+    }
+
+    int termCount() {
+        return terms.length;
+    }
+
+    List<SearchResultDTO> search(SearchCriteria criteria, Pageable pageable) {
+        Scored scored = score(criteria);
+        int total = scored.matches.cardinality();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : total;
+        if (offset >= total || limit == 0) {
+            return List.of();
+        }
+
+        int[] ordered = top(scored, null, (int) Math.min(total, offset + limit));
+        Set<SearchField> fields = criteria.resultFields();
+        List<SearchResultDTO> page = new ArrayList<>(ordered.length - (int) offset);
+        for (int i = (int) offset; i < ordered.length; i++) {
+            page.add(SearchField.project(docs[ordered[i]], fields));
+        }
+        return page;
+    }
+
+    int count(SearchCriteria criteria) {
+        return score(criteria).matches.cardinality();
+    }
+
+    List<UUID> matchIds(SearchCriteria criteria) {
+        BitSet matches = score(criteria).matches;
+        List<UUID> ids = new ArrayList<>(matches.cardinality());
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            ids.add(docs[doc].getId());
+        }
+        return ids;
+    }
+
+    SearchSlice searchAfter(SearchCriteria criteria, SearchCursor after, int limit) {
+        Scored scored = score(criteria);
+
+        // One extra row tells whether a next page exists
+        int[] ordered = top(scored, after, limit + 1);
+        int size = Math.min(limit, ordered.length);
+        Set<SearchField> fields = criteria.resultFields();
+        List<SearchResultDTO> page = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            page.add(SearchField.project(docs[ordered[i]], fields));
+        }
+        SearchCursor next = null;
+        if (ordered.length > limit && size > 0) {
+            int last = ordered[size - 1];
+            next = new SearchCursor(scored.scores[last], years[last], docs[last].getId());
+        }
+        return new SearchSlice(page, next);
+    }
+
+    /**
+     * Resolves the matching ordinals and their scores.
+     */
+    private Scored score(SearchCriteria criteria) {
+        BitSet filter = filters.select(criteria);
+
+        BitSet slugHits = new BitSet();
+        if (criteria.hasSlug()) {
+            BitSet bySlugValue = bySlug.get(criteria.getSlug());
+            if (bySlugValue != null) {
+                slugHits.or(bySlugValue);
+            }
+        }
+
+        List<String> queryTerms = queryTerms(criteria.queryTokens());
+        boolean hasQuery = criteria.getQuery() != null && !criteria.getQuery().isEmpty();
+
+        BitSet matches;
+        float[] exactScores = null;
+        float[] prefixScores = null;
+        BitSet titleHits = null;
+
+        if (!hasQuery) {
+            // Empty query: every document passing the filters matches
+            matches = filter;
+        } else {
+            titleHits = new BitSet();
+            BitSet byTitleValue = byTitle.get(criteria.getQuery().toLowerCase(Locale.ROOT));
+            if (byTitleValue != null) {
+                titleHits.or(byTitleValue);
+            }
+
+            exactScores = new float[docs.length];
+            prefixScores = new float[docs.length];
+            BitSet exactHits = matchAll(queryTerms, false, exactScores);
+            BitSet prefixHits = (criteria.getPrefixQuery() == null || criteria.getPrefixQuery().isEmpty())
+                    ? new BitSet()
+                    : matchAll(queryTerms, true, prefixScores);
+
+            matches = new BitSet();
+            matches.or(slugHits);
+            matches.or(titleHits);
+            matches.or(exactHits);
+            matches.or(prefixHits);
+            matches.and(filter);
+        }
+
+        float[] scores = new float[docs.length];
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            float score;
+            if (slugHits.get(doc)) {
+                score = SCORE_SLUG;
+            } else if (titleHits != null && titleHits.get(doc)) {
+                score = SCORE_EXACT_TITLE;
+            } else if (!hasQuery) {
+                score = 0f;
+            } else {
+                score = average(exactScores[doc], queryTerms.size()) * 2
+                        + average(prefixScores[doc], queryTerms.size());
+            }
+            scores[doc] = score;
+        }
+        return new Scored(matches, scores);
+    }
+
+    /**
+     * Returns the best window matching ordinals sorting after the cursor (all
+     * when after is null), best first, using a bounded heap.
+     */
+    private int[] top(Scored scored, SearchCursor after, int window) {
+        float[] scores = scored.scores;
+        Comparator<Integer> ranking = Comparator.<Integer>comparingDouble(doc -> scores[doc]).reversed()
+                .thenComparing(Comparator.<Integer>comparingInt(doc -> years[doc]).reversed())
+                .thenComparingInt(doc -> doc);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, window), ranking.reversed());
+        BitSet matches = scored.matches;
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            if (after != null && !isAfter(doc, scores[doc], after)) {
+                continue;
+            }
+            heap.offer(doc);
+            if (heap.size() > window) {
+                heap.poll();
+            }
+        }
+
+        int[] ordered = new int[heap.size()];
+        for (int i = ordered.length - 1; i >= 0; i--) {
+            ordered[i] = heap.poll();
+        }
+        return ordered;
+    }
+
+    /**
+     * Whether the document sorts strictly after the cursor in (score DESC, year
+     * DESC, id) order. Ordinals follow PostgreSQL uuid order, which compares
+     * the two halves as unsigned numbers.
+     */
+    private boolean isAfter(int doc, float score, SearchCursor after) {
+        int byScore = Double.compare(score, after.getScore());
+        if (byScore != 0) {
+            return byScore < 0;
+        }
+        if (years[doc] != after.getYear()) {
+            return years[doc] < after.getYear();
+        }
+        UUID id = docs[doc].getId();
+        int byId = Long.compareUnsigned(id.getMostSignificantBits(), after.getId().getMostSignificantBits());
+        if (byId == 0) {
+            byId = Long.compareUnsigned(id.getLeastSignificantBits(), after.getId().getLeastSignificantBits());
+        }
+        return byId > 0;
+    }
+
+    /**
+     * Intersects the documents matching every query term (exact lexeme or term
+     * prefix) and accumulates each term's best field weight into scores.
+     */
+    private BitSet matchAll(List<String> queryTerms, boolean prefix, float[] scores) {
+        if (queryTerms.isEmpty()) {
+            return new BitSet();
+        }
+
+        // Best weight of the current query term per document, valid where termHits is set
+        float[] best = new float[docs.length];
+        BitSet result = null;
+        for (String queryTerm : queryTerms) {
+            BitSet termHits = new BitSet();
+            int from = Arrays.binarySearch(terms, queryTerm);
+            int to = from + 1;
+            if (from < 0) {
+                if (!prefix) {
+                    return new BitSet();
+                }
+                // Only the terms from the insertion point on that start with the query term
+                from = -from - 1;
+                to = from;
+            }
+            if (prefix) {
+                while (to < terms.length && terms[to].startsWith(queryTerm)) {
+                    to++;
+                }
+            }
+
+            for (int t = from; t < to; t++) {
+                int[] termDocs = postings[t];
+                float[] termWeights = weights[t];
+                for (int i = 0; i < termDocs.length; i++) {
+                    int doc = termDocs[i];
+                    if (result != null && !result.get(doc)) {
+                        continue;
+                    }
+                    if (!termHits.get(doc)) {
+                        termHits.set(doc);
+                        best[doc] = termWeights[i];
+                    } else {
+                        best[doc] = Math.max(best[doc], termWeights[i]);
+                    }
+                }
+            }
+            for (int doc = termHits.nextSetBit(0); doc >= 0; doc = termHits.nextSetBit(doc + 1)) {
+                scores[doc] += Math.min(1f, best[doc]);
+            }
+
+            if (result == null) {
+                result = termHits;
+            } else {
+                result.and(termHits);
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        return result;
+    }
+
+    private static float average(float sum, int terms) {
+        return terms == 0 ? 0f : sum / terms;
+    }
+
+    /**
+     * Query tokens without stop words and duplicates.
+     */
+    private static List<String> queryTerms(List<String> tokens) {
+        List<String> queryTerms = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (!STOP_WORDS.contains(token) && !queryTerms.contains(token)) {
+                queryTerms.add(token);
+            }
+        }
+        return queryTerms;
+    }
+
+    private static final class Scored {
+        final BitSet matches;
+        final float[] scores;
+
+        Scored(BitSet matches, float[] scores) {
+            this.matches = matches;
+            this.scores = scores;
+        }
+    }
+
+    private static final class PostingBuilder {
+        int[] docs = new int[4];
+        float[] weights = new float[4];
+        int size;
+
+        void add(int doc, float weight) {
+            if (size > 0 && docs[size - 1] == doc) {
+                weights[size - 1] += weight;
+                return;
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            docs[size] = doc;
+            weights[size++] = weight;
+        }
+    }
+
+    private static final class Builder {
+        final List<SearchResultDTO> docs = new ArrayList<>();
+        final TreeMap<String, PostingBuilder> terms = new TreeMap<>();
+        final FilterPostings filters = new FilterPostings();
+        final Map<String, BitSet> bySlug = new HashMap<>();
+        final Map<String, BitSet> byTitle = new HashMap<>();
+
+        void add(Document document) {
+            int doc = docs.size();
+            docs.add(SearchResultDTO.builder()
+                    .id(document.getId())
+                    .type(document.getType())
+                    .region(document.getRegion())
+                    .field(document.getField())
+                    .title(document.getTitle())
+                    .year(document.getYear())
+                    .link(document.getLink())
+                    .authors(document.getAuthors())
+                    .source(document.getSource())
+                    .citation(document.getCitation())
+                    .keywords(document.getKeywords())
+                    .build());
+
+            index(document.getTitle(), WEIGHT_TITLE, doc);
+            index(document.getAuthors(), WEIGHT_AUTHORS, doc);
+
+            filters.add(doc, document.getType(), document.getRegion(), document.getField(), document.getYear());
+            mark(bySlug, document.getSlug(), doc);
+            if (document.getTitle() != null) {
+                mark(byTitle, document.getTitle().toLowerCase(Locale.ROOT), doc);
+            }
+        }
+
+        private void index(String text, float weight, int doc) {
+            for (String token : QueryNormalizer.tokenize(text)) {
+                terms.computeIfAbsent(token, k -> new PostingBuilder()).add(doc, weight);
+            }
+        }
+
+        private static void mark(Map<String, BitSet> postings, String value, int doc) {
+            if (value != null) {
+                postings.computeIfAbsent(value, k -> new BitSet()).set(doc);
+            }
+        }
+    }
+}
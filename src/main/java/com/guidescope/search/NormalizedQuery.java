@@ -0,0 +1,27 @@
+package com.guidescope.search;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * NormalizedQuery is the output of QueryNormalizer.
+ *
+ * - normalized: lower-cased words separated by single spaces ("" when none)
+ * - prefixQuery: tsquery prefix form ("a:* & b:*"), "" when prefix matching is
+ * off or there are no words
+ * - tokens: the words of normalized, in order
+ */
+@Value
+public class NormalizedQuery {
+
+    public static final NormalizedQuery EMPTY = new NormalizedQuery("", "", List.of());
+
+    String normalized;
+    String prefixQuery;
+    List<String> tokens;
+
+    public boolean isEmpty() {
+        return normalized.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.AutocompleteResponseDTO;
+import com.guidescope.repository.DocumentRepository;
+import com.guidescope.repository.SearchJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * PostgresAutocompleteEngine resolves suggestions with a phrase prefix lookup
+ * in the autocomplete_suggestions table, kept in sync with documents by
+ * triggers (DocumentRepository.findAutocompleteSuggestions).
+ *
+ * Default engine and fallback for InMemoryAutocompleteEngine. Slow lookups are
+ * reported to SlowQueryProfiler.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresAutocompleteEngine implements AutocompleteEngine {
+
+    private final DocumentRepository documentRepository;
+    private final SearchJdbcRepository searchJdbcRepository;
+    private final SlowQueryProfiler slowQueryProfiler;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<AutocompleteResponseDTO.Suggestion> suggest(SearchCriteria criteria, int limit) {
+        long start = System.nanoTime();
+        List<Object[]> rows = documentRepository.findAutocompleteSuggestions(
+                criteria.getNormalizedQuery(), criteria.getTypes(), criteria.getRegion(), criteria.getField(),
+                criteria.getYearFrom(), criteria.getYearTo());
+        long nanos = System.nanoTime() - start;
+        if (slowQueryProfiler.sample(nanos)) {
+            slowQueryProfiler.capture(SearchMetrics.Operation.AUTOCOMPLETE, criteria, nanos,
+                    () -> searchJdbcRepository.explainAutocomplete(criteria));
+        }
+
+        return rows.stream()
+                .filter(row -> row != null && row.length >= 2) // Ensure we have both title and slug
+                .map(row -> {
+                    try {
+                        String title = (row[0] != null) ? (String) row[0] : "";
+                        String slug = (row[1] != null) ? (String) row[1] : "";
+                        return new AutocompleteResponseDTO.Suggestion(title, slug);
+                    } catch (Exception e) {
+                        log.error("Error mapping autocomplete suggestion row: {}", e.getMessage(), e);
+                        return null;
+                    }
+                })
+                .filter(suggestion -> suggestion != null && !suggestion.getTitle().isEmpty())
+                .limit(limit)
+                .toList();
+    }
+}
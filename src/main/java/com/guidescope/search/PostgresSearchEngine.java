@@ -0,0 +1,94 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.repository.SearchJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * PostgresSearchEngine executes searches through PostgreSQL Full-Text Search.
+ *
+ * This is the default engine and the fallback for every other engine: it
+ * always reflects the current contents of the documents table. Every query
+ * goes through SearchJdbcRepository, with SQL specialized to the request
+ * shape; slow page queries are reported to SlowQueryProfiler.
+ */
+@Component
+@RequiredArgsConstructor
+public class PostgresSearchEngine implements SearchEngine {
+
+    private final SearchJdbcRepository searchJdbcRepository;
+    private final SlowQueryProfiler slowQueryProfiler;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SearchResultDTO> search(SearchCriteria criteria, Pageable pageable) {
+        long start = System.nanoTime();
+        List<SearchResultDTO> results = searchJdbcRepository.search(criteria, pageable.getOffset(),
+                pageable.getPageSize());
+        long nanos = System.nanoTime() - start;
+        if (slowQueryProfiler.sample(nanos)) {
+            slowQueryProfiler.capture(SearchMetrics.Operation.SEARCH, criteria, nanos,
+                    () -> searchJdbcRepository.explainPage(criteria, pageable.getOffset(), pageable.getPageSize()));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SearchSlice searchAfter(SearchCriteria criteria, SearchCursor after, int limit) {
+        long start = System.nanoTime();
+        SearchSlice slice = searchJdbcRepository.searchAfter(criteria, after, limit);
+        long nanos = System.nanoTime() - start;
+        if (slowQueryProfiler.sample(nanos)) {
+            slowQueryProfiler.capture(SearchMetrics.Operation.SEARCH, criteria, nanos,
+                    () -> searchJdbcRepository.explainAfter(criteria, after, limit));
+        }
+        return slice;
+    }
+
+    /**
+     * Counts exactly up to the threshold with a LIMITed scan; beyond it the
+     * total is the planner's row estimate for the match scan, which costs a
+     * plan but no scan however many rows match.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SearchTotal count(SearchCriteria criteria, long exactThreshold) {
+        if (exactThreshold <= 0) {
+            return SearchTotal.exact(searchJdbcRepository.count(criteria));
+        }
+
+        long capped = searchJdbcRepository.countUpTo(criteria, exactThreshold + 1);
+        if (capped <= exactThreshold) {
+            return SearchTotal.exact(capped);
+        }
+
+        long estimate = searchJdbcRepository.countEstimate(criteria);
+        // We know there are more rows than the threshold, whatever the statistics say
+        return SearchTotal.approximate(Math.max(exactThreshold + 1, estimate));
+    }
+
+    /**
+     * Counts in the database; only one row per facet value comes back.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public SearchFacetsDTO facets(SearchCriteria criteria, FacetIndex index) {
+        return index.complete(searchJdbcRepository.facets(criteria));
+    }
+
+    /**
+     * Streams every match in ranking order through a server-side cursor. The
+     * caller must consume and close the stream inside a transaction.
+     */
+    public Stream<SearchResultDTO> stream(SearchCriteria criteria) {
+        return searchJdbcRepository.stream(criteria);
+    }
+}
@@ -0,0 +1,97 @@
+package com.guidescope.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * QueryNormalizer turns raw user input into the forms the search engines
+ * need, in one pass over the characters and without regular expressions.
+ *
+ * Rules:
+ * - Words are runs of Unicode letters and digits (combining marks stay inside
+ * the word, so "Ménière" survives whether or not it is precomposed)
+ * - Words are lower-cased; everything else (punctuation, tsquery operators,
+ * whitespace) only separates words
+ * - The same word rule is used to tokenize indexed text (InvertedIndex), so
+ * query and document tokens always line up
+ */
+public final class QueryNormalizer {
+
+    private static final String PREFIX_SEPARATOR = ":* & ";
+    private static final String PREFIX_SUFFIX = ":*";
+
+    private QueryNormalizer() {
+    }
+
+    /**
+     * Normalizes raw input. The prefix query is only built when prefix is true
+     * (i.e. exact matching was not requested).
+     */
+    public static NormalizedQuery normalize(String raw, boolean prefix) {
+        if (raw == null || raw.isEmpty()) {
+            return NormalizedQuery.EMPTY;
+        }
+
+        StringBuilder normalized = new StringBuilder(raw.length());
+        List<String> tokens = new ArrayList<>(4);
+        int tokenStart = -1;
+        for (int i = 0; i < raw.length();) {
+            int codePoint = raw.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isWordCodePoint(codePoint)) {
+                if (tokenStart < 0) {
+                    if (normalized.length() > 0) {
+                        normalized.append(' ');
+                    }
+                    tokenStart = normalized.length();
+                }
+                normalized.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (tokenStart >= 0) {
+                tokens.add(normalized.substring(tokenStart));
+                tokenStart = -1;
+            }
+        }
+        if (tokenStart >= 0) {
+            tokens.add(normalized.substring(tokenStart));
+        }
+        if (tokens.isEmpty()) {
+            return NormalizedQuery.EMPTY;
+        }
+
+        // Input that is already normalized (typical for autocomplete) is reused as is
+        String text = raw.contentEquals(normalized) ? raw : normalized.toString();
+        return new NormalizedQuery(text, prefix ? prefixQuery(normalized, tokens.size()) : "",
+                Collections.unmodifiableList(tokens));
+    }
+
+    /**
+     * Splits text into lower-cased words using the normalizer's word rule.
+     */
+    public static List<String> tokenize(String text) {
+        return normalize(text, false).getTokens();
+    }
+
+    static boolean isWordCodePoint(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+
+    // normalized holds single-space separated words, so each space becomes one separator
+    private static String prefixQuery(CharSequence normalized, int tokenCount) {
+        StringBuilder prefix = new StringBuilder(
+                normalized.length() + (tokenCount - 1) * (PREFIX_SEPARATOR.length() - 1) + PREFIX_SUFFIX.length());
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c == ' ') {
+                prefix.append(PREFIX_SEPARATOR);
+            } else {
+                prefix.append(c);
+            }
+        }
+        return prefix.append(PREFIX_SUFFIX).toString();
+    }
+}
@@ -0,0 +1,37 @@
+package com.guidescope.search;
+
+import java.util.Locale;
+
+/**
+ * QueryShape classifies a search request by what drives its matching.
+ *
+ * - SLUG: a slug lookup (the slug wins over any query text)
+ * - EXACT: query text with exact title matching requested
+ * - TEXT: query text matched with full-text and prefix search
+ * - FILTER: no query text, only filters (or nothing: the whole catalogue)
+ */
+public enum QueryShape {
+    TEXT,
+    EXACT,
+    SLUG,
+    FILTER;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public static QueryShape of(SearchCriteria criteria) {
+        if (criteria.hasSlug()) {
+            return SLUG;
+        }
+        if (criteria.hasQuery()) {
+            return criteria.isExact() ? EXACT : TEXT;
+        }
+        return FILTER;
+    }
+
+    /**
+     * Lower-case name, used as a metric tag value.
+     */
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,109 @@
+package com.guidescope.search;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * SearchCriteria carries the normalized search input from SearchService to a
+ * SearchEngine.
+ *
+ * - query: the original (trimmed) query, used for exact title and websearch
+ * matching
+ * - normalizedQuery: lower-cased, punctuation-free form of the query
+ * - prefixQuery: tsquery prefix form ("a:* & b:*"), empty when exact matching
+ * is requested
+ * - tokens: the words of normalizedQuery (see QueryNormalizer)
+ * - fields: result properties to return (null for all); no effect on
+ * matching, counts or facets
+ */
+@Value
+@Builder(toBuilder = true)
+public class SearchCriteria {
+    String query;
+    String normalizedQuery;
+    String prefixQuery;
+    List<String> tokens;
+    String slug;
+    boolean exact;
+    String[] types;
+    String region;
+    String field;
+    Integer yearFrom;
+    Integer yearTo;
+    Set<SearchField> fields;
+
+    /**
+     * Normalizes and sanitizes the raw search input of /search, /search/facets
+     * and /search/export. ResponseCacheInterceptor builds its cache keys from
+     * the same criteria.
+     */
+    public static SearchCriteria of(String query, String[] types, String region, String field,
+            Integer yearFrom, Integer yearTo, String slug, Boolean exact, Set<SearchField> fields) {
+        // Lower-cased words only, so the prefix form ("a:* & b:*") never contains
+        // tsquery syntax. This supports the "Related/Partial" search via to_tsquery
+        NormalizedQuery normalized = QueryNormalizer.normalize(query, exact == null || !exact);
+
+        // CRITICAL FIX: For the main query parameter passed to the repository,
+        // we must use the original (trimmed) query, NOT the stripped one.
+        // This is because the repository uses this parameter for:
+        // 1. Exact Title Match (lower(title) = lower(:query)) -> Needs punctuation!
+        // 2. websearch_to_tsquery(:query) -> Handles punctuation safely itself!
+        //
+        // The previous 'normalizedQuery' stripped all special chars, breaking exact
+        // matching
+        // for titles like "AHA/ACC..." and potentially confusing websearch_to_tsquery.
+        String tsQuery = (query == null) ? "" : query.trim();
+
+        return SearchCriteria.builder()
+                .query(tsQuery)
+                .normalizedQuery(normalized.getNormalized())
+                .prefixQuery(normalized.getPrefixQuery())
+                .tokens(normalized.getTokens())
+                .slug(slug)
+                .exact(exact != null && exact)
+                .types(types)
+                .region(region)
+                .field(field)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .fields(fields)
+                .build();
+    }
+
+    public boolean hasQuery() {
+        return normalizedQuery != null && !normalizedQuery.isEmpty();
+    }
+
+    /**
+     * The query words, tokenizing normalizedQuery when the builder did not set
+     * them.
+     */
+    public List<String> queryTokens() {
+        return (tokens != null) ? tokens : QueryNormalizer.tokenize(normalizedQuery);
+    }
+
+    public Set<SearchField> resultFields() {
+        return (fields != null) ? fields : SearchField.ALL;
+    }
+
+    public boolean hasSlug() {
+        return slug != null && !slug.isEmpty();
+    }
+
+    public boolean hasFilters() {
+        return (types != null && types.length > 0) || region != null || field != null || yearFrom != null
+                || yearTo != null;
+    }
+
+    /**
+     * Whether the criteria make a search that is run and counted: a query, a
+     * filter or a slug. ResponseCacheInterceptor applies the same check to
+     * requests answered from the response cache.
+     */
+    public boolean isSearch() {
+        return hasQuery() || hasFilters() || hasSlug();
+    }
+}
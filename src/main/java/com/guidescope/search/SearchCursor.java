@@ -0,0 +1,52 @@
+package com.guidescope.search;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * SearchCursor is the sort key (score, year, id) of the last row of a keyset
+ * page. It is handed to clients as an opaque URL-safe token and decoded on the
+ * next request to continue right after that row.
+ *
+ * The token "*" requests the first page in cursor mode.
+ */
+@Value
+public class SearchCursor {
+
+    public static final String FIRST_PAGE = "*";
+
+    private static final String VERSION = "v1";
+
+    double score;
+    int year;
+    UUID id;
+
+    public String encode() {
+        String raw = VERSION + ':' + score + ':' + year + ':' + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a client token. Returns null for the first-page token.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank() || FIRST_PAGE.equals(token.trim())) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Unsupported cursor format");
+            }
+            return new SearchCursor(Double.parseDouble(parts[1]), Integer.parseInt(parts[2]), UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + token, e);
+        }
+    }
+}
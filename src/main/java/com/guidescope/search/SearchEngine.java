@@ -0,0 +1,45 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.dto.SearchResultDTO;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * SearchEngine is the pluggable execution backend behind SearchService.
+ *
+ * Contract:
+ * - Receives already normalized criteria (see SearchCriteria)
+ * - Applies the GuideScope ranking rules (slug > exact title > FTS rank, then
+ * year DESC)
+ * - Rows are totally ordered by (score DESC, year DESC, id) so keyset paging
+ * via searchAfter never skips or repeats a row
+ * - Pages and totals are fetched separately, so callers holding a cached total
+ * never pay for counting again
+ */
+public interface SearchEngine {
+
+    /**
+     * Returns one offset page of results, without counting.
+     */
+    List<SearchResultDTO> search(SearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Returns up to limit rows sorting strictly after the cursor (from the
+     * first row when after is null).
+     */
+    SearchSlice searchAfter(SearchCriteria criteria, SearchCursor after, int limit);
+
+    /**
+     * Counts the matches. Counts are exact up to exactThreshold; above it an
+     * engine may return an estimate. A threshold <= 0 always counts exactly.
+     */
+    SearchTotal count(SearchCriteria criteria, long exactThreshold);
+
+    /**
+     * Counts the matches per facet value following the FacetIndex counting
+     * rules, with every value known to index listed (zero when unmatched).
+     */
+    SearchFacetsDTO facets(SearchCriteria criteria, FacetIndex index);
+}
@@ -0,0 +1,92 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchResultDTO;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * SearchField is a result property that can be requested with the fields=
+ * parameter of /search. The id is always returned and is not listed here.
+ *
+ * The name of each constant (lower-cased) is both the JSON property and the
+ * documents column.
+ */
+public enum SearchField {
+    TYPE,
+    REGION,
+    FIELD,
+    TITLE,
+    YEAR,
+    LINK,
+    AUTHORS,
+    SOURCE,
+    CITATION,
+    KEYWORDS;
+
+    public static final Set<SearchField> ALL = Collections.unmodifiableSet(EnumSet.allOf(SearchField.class));
+
+    private final String column = name().toLowerCase(Locale.ROOT);
+
+    public String column() {
+        return column;
+    }
+
+    /**
+     * Parses the fields= values (each may itself be comma-separated). No
+     * values means every field; "id" is accepted and ignored.
+     *
+     * @throws IllegalArgumentException for an unknown field name
+     */
+    public static Set<SearchField> parse(String[] values) {
+        if (values == null || values.length == 0) {
+            return ALL;
+        }
+        EnumSet<SearchField> fields = EnumSet.noneOf(SearchField.class);
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                String trimmed = name.trim().toLowerCase(Locale.ROOT);
+                if (trimmed.isEmpty() || trimmed.equals("id")) {
+                    continue;
+                }
+                try {
+                    fields.add(valueOf(trimmed.toUpperCase(Locale.ROOT)));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown field '" + name.trim() + "', expected any of id, "
+                            + String.join(", ", ALL.stream().map(SearchField::column).toList()));
+                }
+            }
+        }
+        return (fields.size() == ALL.size()) ? ALL : Collections.unmodifiableSet(fields);
+    }
+
+    /**
+     * Copy of the result with only the given fields (and the id) set, marked
+     * projected. Returns the result itself when every field is requested.
+     */
+    public static SearchResultDTO project(SearchResultDTO result, Set<SearchField> fields) {
+        if (fields.size() == ALL.size()) {
+            return result;
+        }
+        SearchResultDTO.SearchResultDTOBuilder projected = SearchResultDTO.builder()
+                .id(result.getId())
+                .projected(true);
+        for (SearchField field : fields) {
+            switch (field) {
+                case TYPE -> projected.type(result.getType());
+                case REGION -> projected.region(result.getRegion());
+                case FIELD -> projected.field(result.getField());
+                case TITLE -> projected.title(result.getTitle());
+                case YEAR -> projected.year(result.getYear());
+                case LINK -> projected.link(result.getLink());
+                case AUTHORS -> projected.authors(result.getAuthors());
+                case SOURCE -> projected.source(result.getSource());
+                case CITATION -> projected.citation(result.getCitation());
+                case KEYWORDS -> projected.keywords(result.getKeywords());
+            }
+        }
+        return projected.build();
+    }
+}
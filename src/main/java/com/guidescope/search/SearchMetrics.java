@@ -0,0 +1,95 @@
+package com.guidescope.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * SearchMetrics times the stages of search and autocomplete requests.
+ *
+ * Every stage is a search.stage timer tagged with:
+ * - operation: search or autocomplete
+ * - stage: normalize, query (the engine call, including map), map (ResultSet
+ * to DTO), count, suggest or serialize (JSON writing of the response)
+ * - shape: the QueryShape tag, or "all" where the shape is not known
+ * (serialize)
+ *
+ * Timers publish a percentile histogram (for Prometheus-style backends) and
+ * the 50/95/99th percentiles (visible at /actuator/metrics/search.stage).
+ * They are registered on first use and then looked up by array index, so
+ * recording does not allocate.
+ */
+@Component
+public class SearchMetrics {
+
+    public static final String STAGE_TIMER = "search.stage";
+
+    public enum Operation {
+        SEARCH,
+        AUTOCOMPLETE
+    }
+
+    public enum Stage {
+        NORMALIZE,
+        QUERY,
+        MAP,
+        COUNT,
+        SUGGEST,
+        SERIALIZE
+    }
+
+    private static final String ALL_SHAPES = "all";
+    private static final int STAGES = Stage.values().length;
+    private static final int SHAPES = QueryShape.values().length + 1;
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicReferenceArray<Timer> timers =
+            new AtomicReferenceArray<>(Operation.values().length * STAGES * SHAPES);
+
+    public SearchMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records a stage duration. shape may be null when it is not known.
+     */
+    public void record(Operation operation, Stage stage, QueryShape shape, long nanos) {
+        timer(operation, stage, shape).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Runs the stage and records how long it took (also when it throws).
+     */
+    public <T> T time(Operation operation, Stage stage, QueryShape shape, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(operation, stage, shape, System.nanoTime() - start);
+        }
+    }
+
+    private Timer timer(Operation operation, Stage stage, QueryShape shape) {
+        int shapeIndex = (shape != null) ? shape.ordinal() : SHAPES - 1;
+        int index = (operation.ordinal() * STAGES + stage.ordinal()) * SHAPES + shapeIndex;
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            // Registration is idempotent, so a race only builds the same timer twice
+            timer = Timer.builder(STAGE_TIMER)
+                    .description("Duration of one stage of a search or autocomplete request")
+                    .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .tag("shape", (shape != null) ? shape.tag() : ALL_SHAPES)
+                    .publishPercentileHistogram()
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(meterRegistry);
+            timers.set(index, timer);
+        }
+        return timer;
+    }
+}
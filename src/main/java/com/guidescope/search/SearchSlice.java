@@ -0,0 +1,16 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchResultDTO;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * SearchSlice is one keyset page: the results and the cursor of the next page
+ * (null on the last page).
+ */
+@Value
+public class SearchSlice {
+    List<SearchResultDTO> results;
+    SearchCursor next;
+}
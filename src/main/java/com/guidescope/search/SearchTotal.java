@@ -0,0 +1,21 @@
+package com.guidescope.search;
+
+import lombok.Value;
+
+/**
+ * SearchTotal is a match count that is either exact or an estimate (when the
+ * exact count would exceed the configured threshold).
+ */
+@Value
+public class SearchTotal {
+    long value;
+    boolean exact;
+
+    public static SearchTotal exact(long value) {
+        return new SearchTotal(value, true);
+    }
+
+    public static SearchTotal approximate(long value) {
+        return new SearchTotal(value, false);
+    }
+}
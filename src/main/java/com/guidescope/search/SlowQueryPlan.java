@@ -0,0 +1,30 @@
+package com.guidescope.search;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One captured EXPLAIN (ANALYZE, BUFFERS) plan of a slow search or
+ * autocomplete query, with the request that triggered it.
+ */
+@Value
+@Builder
+public class SlowQueryPlan {
+    Instant capturedAt;
+    String operation;
+    String shape;
+    // Duration of the original (slow) execution
+    long durationMillis;
+    String query;
+    String slug;
+    List<String> types;
+    String region;
+    String field;
+    Integer yearFrom;
+    Integer yearTo;
+    // EXPLAIN output, one line per element
+    List<String> plan;
+}
@@ -0,0 +1,146 @@
+package com.guidescope.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * SlowQueryProfiler keeps query plans of slow Postgres searches and
+ * autocomplete lookups.
+ *
+ * Pipeline:
+ * - The Postgres engines time each query; one slower than
+ * app.search.slow-query.threshold is picked with probability
+ * app.search.slow-query.sample-rate
+ * - A picked query is re-run under EXPLAIN (ANALYZE, BUFFERS) by a single
+ * background worker with a short queue; when the worker is busy the capture
+ * is skipped (search.slow-query.skipped), never awaited
+ * - Plans are kept per operation and QueryShape (e.g. "search:slug"), the
+ * newest app.search.slow-query.plans-per-shape of each, and exposed as the
+ * slowqueries actuator endpoint (JMX only)
+ */
+@Component
+@Slf4j
+public class SlowQueryProfiler {
+
+    private static final int QUEUE_SIZE = 4;
+
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final double sampleRate;
+    private final int plansPerShape;
+    private final Map<String, Deque<SlowQueryPlan>> plans = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+    private final Counter captured;
+    private final Counter skipped;
+
+    public SlowQueryProfiler(
+            @Value("${app.search.slow-query.enabled:true}") boolean enabled,
+            @Value("${app.search.slow-query.threshold:500ms}") Duration threshold,
+            @Value("${app.search.slow-query.sample-rate:0.1}") double sampleRate,
+            @Value("${app.search.slow-query.plans-per-shape:5}") int plansPerShape,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.plansPerShape = plansPerShape;
+        this.captured = meterRegistry.counter("search.slow-query.captured");
+        this.skipped = meterRegistry.counter("search.slow-query.skipped");
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), Thread.ofVirtual().name("slow-query-explain").factory(),
+                (task, pool) -> skipped.increment());
+    }
+
+    /**
+     * True when a query that took nanos should have its plan captured. Cheap
+     * enough to call after every query.
+     */
+    public boolean sample(long nanos) {
+        return enabled && nanos >= thresholdNanos && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Runs explain in the background and stores the plan. explain must not
+     * depend on the caller's transaction.
+     */
+    public void capture(SearchMetrics.Operation operation, SearchCriteria criteria, long nanos,
+            Supplier<List<String>> explain) {
+        executor.execute(() -> {
+            try {
+                SlowQueryPlan plan = SlowQueryPlan.builder()
+                        .capturedAt(Instant.now())
+                        .operation(tag(operation))
+                        .shape(QueryShape.of(criteria).tag())
+                        .durationMillis(TimeUnit.NANOSECONDS.toMillis(nanos))
+                        .query((criteria.getQuery() != null) ? criteria.getQuery() : criteria.getNormalizedQuery())
+                        .slug(criteria.getSlug())
+                        .types((criteria.getTypes() != null) ? List.of(criteria.getTypes()) : null)
+                        .region(criteria.getRegion())
+                        .field(criteria.getField())
+                        .yearFrom(criteria.getYearFrom())
+                        .yearTo(criteria.getYearTo())
+                        .plan(explain.get())
+                        .build();
+                store(plan);
+                captured.increment();
+                log.info("Captured plan of a slow {} query ({} shape, {}ms)", plan.getOperation(), plan.getShape(),
+                        plan.getDurationMillis());
+            } catch (RuntimeException e) {
+                skipped.increment();
+                log.warn("Failed to capture the plan of a slow {} query: {}", tag(operation), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Captured plans per "operation:shape", newest first.
+     */
+    public Map<String, List<SlowQueryPlan>> plans() {
+        Map<String, List<SlowQueryPlan>> snapshot = new TreeMap<>();
+        plans.forEach((key, ring) -> {
+            synchronized (ring) {
+                snapshot.put(key, new ArrayList<>(ring));
+            }
+        });
+        return snapshot;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void store(SlowQueryPlan plan) {
+        Deque<SlowQueryPlan> ring = plans.computeIfAbsent(plan.getOperation() + ":" + plan.getShape(),
+                k -> new ArrayDeque<>(plansPerShape));
+        synchronized (ring) {
+            ring.addFirst(plan);
+            while (ring.size() > plansPerShape) {
+                ring.removeLast();
+            }
+        }
+    }
+
+    private static String tag(SearchMetrics.Operation operation) {
+        return operation.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,198 @@
+package com.guidescope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CompressedResponseCache keeps serialized search response bodies, plain and
+ * gzip-compressed, so hot queries are neither serialized nor compressed again.
+ *
+ * Characteristics:
+ * - Bodies live off-heap in read-only direct ByteBuffers, outside the GC'd
+ * heap, and are written to the servlet output stream without copying them
+ * into a byte[] first
+ * - A body is only stored for a request seen before (admit): one-off
+ * queries cost no serialization, compression or off-heap allocation
+ * - Stored bodies are compressed once, at the highest gzip level, on a
+ * background thread rather than the request thread; the gzip form is kept
+ * only when it is smaller. When the compressor falls behind, bodies are
+ * dropped and a later request stores them
+ * - Bounded by the off-heap bytes held (app.http.response-cache.max-size);
+ * W-TinyLFU keeps the repeating top queries. The JVM's direct memory limit
+ * (-XX:MaxDirectMemorySize) must leave room for this budget
+ * - Keys include the corpus version, and the whole cache is dropped on
+ * CorpusChangedEvent
+ * - Hit/miss/eviction metrics are published as cache.* meters tagged
+ * cache=search.responses, the bytes held as search.responses.bytes
+ */
+@Component
+@Slf4j
+public class CompressedResponseCache {
+
+    public static final String CACHE_NAME = "search.responses";
+
+    private static final int SEEN_KEYS = 10_000;
+    private static final int COMPRESS_QUEUE_SIZE = 64;
+
+    private final Cache<String, Entry> cache;
+    private final Cache<String, Boolean> seen;
+    private final ThreadPoolExecutor compressor;
+
+    public CompressedResponseCache(
+            @Value("${app.http.response-cache.enabled:true}") boolean enabled,
+            @Value("${app.http.response-cache.max-size:32MB}") DataSize maxSize,
+            MeterRegistry meterRegistry) {
+        if (!enabled) {
+            log.info("Compressed response cache disabled");
+            this.cache = null;
+            this.seen = null;
+            this.compressor = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, Entry entry) -> entry.weight())
+                .recordStats()
+                .build();
+        this.seen = Caffeine.newBuilder()
+                .maximumSize(SEEN_KEYS)
+                .build();
+        this.compressor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(COMPRESS_QUEUE_SIZE),
+                Thread.ofPlatform().name("response-cache-gzip").daemon().factory(),
+                new ThreadPoolExecutor.DiscardPolicy());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        meterRegistry.gauge(CACHE_NAME + ".bytes", cache,
+                c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        log.info("Compressed response cache enabled with an off-heap budget of {}", maxSize);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    public Entry get(String key) {
+        return (cache != null) ? cache.getIfPresent(key) : null;
+    }
+
+    /**
+     * Whether a missed key should be stored: true from its second sighting on.
+     * The first sighting is only remembered (up to SEEN_KEYS keys).
+     */
+    public boolean admit(String key) {
+        return cache != null && seen.asMap().putIfAbsent(key, Boolean.TRUE) != null;
+    }
+
+    /**
+     * Compresses and stores a serialized body in the background. The body
+     * array is taken over and must not be modified afterwards.
+     */
+    public void put(String key, byte[] body, String contentType, Long results) {
+        if (cache == null) {
+            return;
+        }
+        compressor.execute(() -> {
+            byte[] gzip = gzip(body);
+            cache.put(key, new Entry(offHeap(body), (gzip.length < body.length) ? offHeap(gzip) : null,
+                    contentType, results));
+        });
+    }
+
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCorpusChanged() {
+        if (cache != null) {
+            cache.invalidateAll();
+            seen.invalidateAll();
+            log.info("Compressed response cache invalidated after corpus change");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (compressor != null) {
+            compressor.shutdownNow();
+        }
+    }
+
+    private static ByteBuffer offHeap(byte[] bytes) {
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            // In-memory streams do not fail
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * One cached body. The buffers are shared: readers must use plain() or
+     * gzip(), which return independent views.
+     */
+    public static final class Entry {
+
+        private final ByteBuffer plain;
+        private final ByteBuffer gzip;
+        private final String contentType;
+        private final Long results;
+
+        Entry(ByteBuffer plain, ByteBuffer gzip, String contentType, Long results) {
+            this.plain = plain;
+            this.gzip = gzip;
+            this.contentType = contentType;
+            this.results = results;
+        }
+
+        public ByteBuffer plain() {
+            return plain.duplicate();
+        }
+
+        /**
+         * The gzip body, or null when compression did not make it smaller.
+         */
+        public ByteBuffer gzip() {
+            return (gzip != null) ? gzip.duplicate() : null;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public Long getResults() {
+            return results;
+        }
+
+        int weight() {
+            return plain.capacity() + ((gzip != null) ? gzip.capacity() : 0);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.guidescope.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CorpusChangeListener applies catalogue changes made through any node as soon
+ * as they commit, using the corpus_changed notifications sent by the corpus
+ * version trigger (see V6__Corpus_Change_Notify.sql).
+ *
+ * Characteristics:
+ * - One dedicated connection per node, opened outside the pools (a pooled
+ * connection would be held forever) against app.corpus.notify.url, which
+ * defaults to the primary datasource url and credentials. LISTEN does not
+ * work through a transaction pooler, so when spring.datasource.url goes
+ * through one, app.corpus.notify.url must reach the primary directly or
+ * through a session-mode pooler
+ * - With notifications disabled or no url, a WARN is logged at startup and
+ * changes are picked up by the app.corpus.poll-interval poll only
+ * - Notifications are debounced: the highest version received is applied once
+ * the channel has been quiet for app.corpus.notify.debounce, or at the latest
+ * app.corpus.notify.max-delay after the first one, so a load running many
+ * statements causes one refresh
+ * - Applying a version goes through CorpusVersionService.advanceTo, whose
+ * CorpusChangedEvent rebuilds the in-memory indexes and drops every
+ * in-process cache
+ * - After (re)connecting, the persisted version is read once, since
+ * notifications sent while disconnected are lost; the app.corpus.poll-interval
+ * poll stays as a safety net
+ */
+@Component
+@Slf4j
+public class CorpusChangeListener {
+
+    private static final String CHANNEL = "corpus_changed";
+
+    // getNotifications wait while nothing is pending, so stop() is noticed
+    private static final int IDLE_WAIT_MILLIS = 1000;
+
+    private final CorpusVersionService corpusVersionService;
+    private final boolean enabled;
+    private final Duration pollInterval;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long debounceNanos;
+    private final long maxDelayNanos;
+    private final long reconnectDelayMillis;
+
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public CorpusChangeListener(
+            CorpusVersionService corpusVersionService,
+            @Value("${app.corpus.notify.enabled:true}") boolean enabled,
+            @Value("${app.corpus.poll-interval:30s}") Duration pollInterval,
+            @Value("${app.corpus.notify.url:${spring.datasource.url:}}") String url,
+            @Value("${app.corpus.notify.username:${spring.datasource.username}}") String username,
+            @Value("${app.corpus.notify.password:${spring.datasource.password}}") String password,
+            @Value("${app.corpus.notify.debounce:500ms}") Duration debounce,
+            @Value("${app.corpus.notify.max-delay:5s}") Duration maxDelay,
+            @Value("${app.corpus.notify.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.corpusVersionService = corpusVersionService;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.debounceNanos = debounce.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.reconnectDelayMillis = reconnectDelay.toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (!enabled) {
+            log.warn("app.corpus.notify.enabled is false: corpus changes are picked up by the {} poll only",
+                    pollInterval);
+            return;
+        }
+        if (url == null || url.isBlank()) {
+            log.warn("No app.corpus.notify.url or spring.datasource.url: corpus changes are picked up "
+                    + "by the {} poll only", pollInterval);
+            return;
+        }
+        running = true;
+        thread = Thread.ofPlatform().name("corpus-listener").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException e) {
+                log.debug("Failed to close the corpus listener connection: {}", e.getMessage());
+            }
+        }
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(url, username, password)) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                log.info("Listening for corpus changes on {}", CHANNEL);
+                corpusVersionService.refresh();
+                listen(listening.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Corpus change listener disconnected, reconnecting in {}ms: {}", reconnectDelayMillis,
+                        e.getMessage());
+                sleep(reconnectDelayMillis);
+            } finally {
+                connection = null;
+            }
+        }
+    }
+
+    private void listen(PGConnection listening) throws SQLException {
+        long pending = -1;
+        long first = 0;
+        long last = 0;
+        while (running) {
+            int wait = IDLE_WAIT_MILLIS;
+            if (pending >= 0) {
+                long due = Math.min(last + debounceNanos, first + maxDelayNanos);
+                wait = (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(due - System.nanoTime()));
+            }
+            PGNotification[] notifications = listening.getNotifications(wait);
+            long now = System.nanoTime();
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    long version = version(notification);
+                    if (version < 0) {
+                        continue;
+                    }
+                    if (pending < 0) {
+                        first = now;
+                    }
+                    pending = Math.max(pending, version);
+                    last = now;
+                }
+            }
+            if (pending >= 0 && (now - last >= debounceNanos || now - first >= maxDelayNanos)) {
+                corpusVersionService.advanceTo(pending);
+                pending = -1;
+            }
+        }
+    }
+
+    private static long version(PGNotification notification) {
+        try {
+            return Long.parseLong(notification.getParameter());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring {} notification with payload '{}'", CHANNEL, notification.getParameter());
+            return -1;
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
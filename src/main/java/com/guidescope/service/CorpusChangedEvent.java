@@ -0,0 +1,13 @@
+package com.guidescope.service;
+
+import lombok.Value;
+
+/**
+ * CorpusChangedEvent is published whenever the documents table is detected to
+ * have changed. Listeners rebuild indexes and drop cached results.
+ */
+@Value
+public class CorpusChangedEvent {
+    long previousVersion;
+    long version;
+}
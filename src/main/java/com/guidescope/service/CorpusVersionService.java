@@ -0,0 +1,86 @@
+package com.guidescope.service;
+
+import com.guidescope.repository.DocumentRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CorpusVersionService tracks the version of the document catalogue.
+ *
+ * The version lives in corpus_state and is bumped by a database trigger on
+ * every change to documents. This service polls it on
+ * app.corpus.poll-interval and publishes a CorpusChangedEvent when it moves,
+ * so every in-process cache keyed on the version can be invalidated.
+ * CorpusChangeListener advances it as soon as a change commits on any node.
+ *
+ * A new version is only returned by currentVersion once every listener of
+ * its CorpusChangedEvent has finished, so nothing computed from a stale index
+ * is cached under it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CorpusVersionService {
+
+    private final DocumentRepository documentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong version = new AtomicLong(-1);
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${app.corpus.poll-interval:30s}", initialDelayString = "${app.corpus.poll-interval:30s}")
+    public void poll() {
+        refresh();
+    }
+
+    /**
+     * Reads the persisted version and publishes a CorpusChangedEvent if it
+     * differs from the one last seen.
+     */
+    public void refresh() {
+        try {
+            Long persisted = documentRepository.findCorpusVersion();
+            advanceTo(persisted != null ? persisted : 0L);
+        } catch (Exception e) {
+            log.error("Failed to read corpus version: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the local version forward to the given value. Versions never move
+     * backwards. Listeners run (and rebuild) before the version is published;
+     * until then requests keep using the previous one.
+     */
+    public synchronized void advanceTo(long newVersion) {
+        long previous = version.get();
+        if (newVersion <= previous) {
+            return;
+        }
+        if (previous < 0) {
+            version.set(newVersion);
+            log.info("Corpus version initialized at {}", newVersion);
+            return;
+        }
+        log.info("Corpus changed: version {} -> {}", previous, newVersion);
+        try {
+            eventPublisher.publishEvent(new CorpusChangedEvent(previous, newVersion));
+        } finally {
+            version.set(newVersion);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.guidescope.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * DocumentIngestService bulk-loads a guideline catalogue into the documents
+ * table.
+ *
+ * Pipeline (one transaction):
+ * - Stream the file through PostgreSQL COPY into a temporary staging table;
+ * the file is never held in memory, whatever its size
+ * - Merge the staging table into documents in one INSERT ... SELECT, computing
+ * search vectors set-wise (the per-row trigger keeps supplied vectors, see
+ * V3__Deferred_Search_Vector.sql) with the (type, year, slug) upsert semantics:
+ * the last occurrence of a key in the file wins, and unchanged rows are not
+ * rewritten
+ *
+ * Input formats:
+ * - CSV with a header line and the columns type, year, title, link, region,
+ * field, authors, source, citation, keywords, slug (keywords separated by ';')
+ * - NDJSON (.ndjson / .jsonl), one object per line with the same property names
+ * and keywords as a JSON array
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentIngestService {
+
+    private static final String STAGING_DDL = """
+            CREATE TEMP TABLE documents_staging (
+                seq BIGSERIAL,
+                type TEXT,
+                year INTEGER,
+                title TEXT,
+                link TEXT,
+                region TEXT,
+                field TEXT,
+                authors TEXT,
+                source TEXT,
+                citation TEXT,
+                keywords TEXT,
+                slug TEXT
+            ) ON COMMIT DROP
+            """;
+
+    private static final String COPY_COLUMNS = "(type, year, title, link, region, field, authors, source, citation, keywords, slug)";
+
+    private static final String MERGE = """
+            INSERT INTO documents (type, year, title, link, region, field, authors, source, citation, keywords, slug,
+                                   search_vector)
+            SELECT DISTINCT ON (type, year, slug)
+                   type, year, title, link, region, field, authors, source, citation,
+                   CASE WHEN keywords IS NULL OR keywords = '' THEN NULL ELSE string_to_array(keywords, ';') END,
+                   slug,
+                   setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+                   setweight(to_tsvector('english', coalesce(authors, '')), 'B')
+            FROM documents_staging
+            ORDER BY type, year, slug, seq DESC
+            ON CONFLICT (type, year, slug) DO UPDATE SET
+                title = EXCLUDED.title,
+                link = EXCLUDED.link,
+                region = EXCLUDED.region,
+                field = EXCLUDED.field,
+                authors = EXCLUDED.authors,
+                source = EXCLUDED.source,
+                citation = EXCLUDED.citation,
+                keywords = EXCLUDED.keywords,
+                search_vector = EXCLUDED.search_vector
+            WHERE (documents.title, documents.link, documents.region, documents.field, documents.authors,
+                   documents.source, documents.citation, documents.keywords)
+                  IS DISTINCT FROM
+                  (EXCLUDED.title, EXCLUDED.link, EXCLUDED.region, EXCLUDED.field, EXCLUDED.authors,
+                   EXCLUDED.source, EXCLUDED.citation, EXCLUDED.keywords)
+            """;
+
+    // Bytes handed to the COPY stream per write when converting NDJSON
+    private static final int COPY_CHUNK = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final JsonMapper jsonMapper;
+    private final CorpusVersionService corpusVersionService;
+
+    /**
+     * Loads the file (format chosen by extension) and merges it into documents.
+     */
+    public IngestReport ingest(Path file) throws IOException, SQLException {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean ndjson = name.endsWith(".ndjson") || name.endsWith(".jsonl");
+        log.info("Ingesting {} as {}", file, ndjson ? "NDJSON" : "CSV");
+
+        long start = System.nanoTime();
+        long staged;
+        long merged;
+        long mergeStart;
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(STAGING_DDL);
+
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    staged = ndjson ? copyNdjson(copyManager, reader) : copyCsv(copyManager, reader);
+                }
+
+                mergeStart = System.nanoTime();
+                merged = statement.executeUpdate(MERGE);
+                connection.commit();
+            } catch (IOException | SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        IngestReport report = new IngestReport(staged, merged, elapsedNanos / 1_000_000,
+                (mergeStart - start) / 1_000_000,
+                elapsedNanos > 0 ? Math.round(staged * 1e9 / elapsedNanos) : staged);
+        log.info("Ingest finished: {} rows staged in {}ms, {} documents inserted or updated, {}ms total ({} rows/s)",
+                report.getStaged(), report.getCopyMillis(), report.getMerged(), report.getTotalMillis(),
+                report.getRowsPerSecond());
+
+        // Pick up the new corpus version now instead of at the next poll
+        corpusVersionService.refresh();
+        return report;
+    }
+
+    private long copyCsv(CopyManager copyManager, Reader reader) throws SQLException, IOException {
+        return copyManager.copyIn(
+                "COPY documents_staging " + COPY_COLUMNS + " FROM STDIN WITH (FORMAT csv, HEADER true)", reader);
+    }
+
+    /**
+     * Converts each NDJSON line into a CSV record on the fly and streams it into
+     * COPY in fixed-size chunks.
+     */
+    private long copyNdjson(CopyManager copyManager, Reader reader) throws SQLException, IOException {
+        CopyIn copy = copyManager.copyIn("COPY documents_staging " + COPY_COLUMNS + " FROM STDIN WITH (FORMAT csv)");
+        try {
+            BufferedReader lines = new BufferedReader(reader);
+            StringBuilder chunk = new StringBuilder(COPY_CHUNK + 4096);
+            String line;
+            long lineNumber = 0;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                IngestRecord record;
+                try {
+                    record = jsonMapper.readValue(line, IngestRecord.class);
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid NDJSON on line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                appendCsv(chunk, record);
+                if (chunk.length() >= COPY_CHUNK) {
+                    writeChunk(copy, chunk);
+                }
+            }
+            writeChunk(copy, chunk);
+            return copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static void writeChunk(CopyIn copy, StringBuilder chunk) throws SQLException {
+        if (chunk.length() > 0) {
+            byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            chunk.setLength(0);
+        }
+    }
+
+    private static void appendCsv(StringBuilder out, IngestRecord record) {
+        csv(out, record.type()).append(',');
+        csv(out, (record.year() != null) ? record.year().toString() : null).append(',');
+        csv(out, record.title()).append(',');
+        csv(out, record.link()).append(',');
+        csv(out, record.region()).append(',');
+        csv(out, record.field()).append(',');
+        csv(out, record.authors()).append(',');
+        csv(out, record.source()).append(',');
+        csv(out, record.citation()).append(',');
+        csv(out, (record.keywords() != null) ? String.join(";", record.keywords()) : null).append(',');
+        csv(out, record.slug()).append('\n');
+    }
+
+    // COPY csv: an unquoted empty field is NULL, a quoted one is an empty string
+    private static StringBuilder csv(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record IngestRecord(String type, Integer year, String title, String link, String region, String field,
+            String authors, String source, String citation, List<String> keywords, String slug) {
+    }
+
+    @Value
+    public static class IngestReport {
+        long staged;
+        long merged;
+        long totalMillis;
+        long copyMillis;
+        long rowsPerSecond;
+    }
+}
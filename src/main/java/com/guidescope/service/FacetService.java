@@ -0,0 +1,115 @@
+package com.guidescope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.guidescope.dto.SearchFacetsDTO;
+import com.guidescope.repository.DocumentRepository;
+import com.guidescope.search.FacetIndex;
+import com.guidescope.search.SearchCriteria;
+import com.guidescope.search.SearchEngine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+/**
+ * FacetService computes per-type, per-region, per-field and per-year counts
+ * for a query and filter set.
+ *
+ * Responsibilities:
+ * - Keep a FacetIndex (one Roaring bitmap per facet value) built from the
+ * documents table, rebuilt on every CorpusChangedEvent
+ * - Answer filter-only requests with in-memory bitmap intersections, and
+ * requests with a text part (q/slug) through SearchEngine.facets, which
+ * counts where the matches are (in the database for PostgreSQL)
+ * - Remember facet counts per query shape (cache=search.facets), dropped on
+ * corpus changes
+ */
+@Service
+@Slf4j
+public class FacetService {
+
+    public static final String CACHE_NAME = "search.facets";
+
+    private final DocumentRepository documentRepository;
+    private final SearchEngine searchEngine;
+    private final CorpusVersionService corpusVersionService;
+    private final Cache<SearchQueryKey, SearchFacetsDTO> cache;
+
+    private volatile FacetIndex index;
+
+    public FacetService(DocumentRepository documentRepository, SearchEngine searchEngine,
+            CorpusVersionService corpusVersionService,
+            @Value("${app.search.facets.cache-size:1000}") long cacheSize,
+            MeterRegistry meterRegistry) {
+        this.documentRepository = documentRepository;
+        this.searchEngine = searchEngine;
+        this.corpusVersionService = corpusVersionService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    // Rebuild before the cached counts are dropped below
+    @EventListener(CorpusChangedEvent.class)
+    @Order(0)
+    public void onCorpusChanged() {
+        refresh();
+    }
+
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void invalidate() {
+        cache.invalidateAll();
+        log.info("Facet cache invalidated after corpus change");
+    }
+
+    /**
+     * Rebuilds the facet bitmaps from the documents table and swaps them in
+     * atomically.
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        try {
+            FacetIndex rebuilt = FacetIndex.build(documentRepository.findFacetRows());
+            index = rebuilt;
+            log.info("Facet index built: {} documents in {}ms", rebuilt.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to build facet index, keeping previous state: {}", e.getMessage(), e);
+        }
+    }
+
+    public SearchFacetsDTO facets(SearchCriteria criteria) {
+        SearchQueryKey key = SearchQueryKey.of(corpusVersionService.currentVersion(), criteria);
+        return cache.get(key, k -> compute(criteria));
+    }
+
+    private SearchFacetsDTO compute(SearchCriteria criteria) {
+        FacetIndex current = index;
+        if (current == null) {
+            // Requested before ApplicationReadyEvent finished: build inline
+            refresh();
+            current = index;
+            if (current == null) {
+                throw new IllegalStateException("Facet index is not available");
+            }
+        }
+
+        if (criteria.hasQuery() || criteria.hasSlug()) {
+            return searchEngine.facets(criteria, current);
+        }
+        return current.count(null, criteria);
+    }
+}
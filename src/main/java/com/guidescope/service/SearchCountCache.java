@@ -0,0 +1,72 @@
+package com.guidescope.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.guidescope.search.SearchTotal;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * SearchCountCache remembers the total match count per query shape
+ * (SearchQueryKey, i.e. without the page), so moving from page 1 to page 2 of
+ * the same search no longer repeats the COUNT query.
+ *
+ * Counts are computed asynchronously on their own (virtual) threads, and so on
+ * their own connections, letting callers run the page query at the same time.
+ * A count a caller stopped waiting for still completes into the cache.
+ *
+ * Entries are keyed on the corpus version and dropped on CorpusChangedEvent.
+ * Metrics are published as cache.* meters tagged cache=search.totals.
+ */
+@Component
+@Slf4j
+public class SearchCountCache {
+
+    public static final String CACHE_NAME = "search.totals";
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<SearchQueryKey, SearchTotal> cache;
+
+    public SearchCountCache(
+            @Value("${app.search.count.cache-size:10000}") long maximumSize,
+            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(executor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached or in-flight total for the key, starting the counter
+     * in the background if there is none. Failed counts are not cached.
+     */
+    public CompletableFuture<SearchTotal> get(SearchQueryKey key, Supplier<SearchTotal> counter) {
+        return cache.get(key, k -> counter.get());
+    }
+
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCorpusChanged() {
+        cache.synchronous().invalidateAll();
+        log.info("Search count cache invalidated after corpus change");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,178 @@
+package com.guidescope.service;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.json.SearchJsonModule;
+import com.guidescope.search.PostgresSearchEngine;
+import com.guidescope.search.SearchCriteria;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.exc.JacksonIOException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * SearchExportService writes a full result set straight to an output stream.
+ *
+ * Characteristics:
+ * - One query over a server-side cursor (SearchJdbcRepository.stream,
+ * fetch size 500); rows are written as they arrive, so memory stays constant
+ * whatever the result size
+ * - NDJSON lines go through one JsonGenerator (SearchJsonModule), with no
+ * intermediate String per row
+ * - Always served by PostgreSQL, in the same order as /search
+ * - When the client disconnects, the failed write closes the stream, which
+ * closes the cursor and stops the query
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SearchExportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,type,region,field,title,year,link,authors,source,citation,keywords";
+
+    private final PostgresSearchEngine postgresSearchEngine;
+    private final JsonMapper jsonMapper;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + value + " (use ndjson or csv)");
+            }
+        }
+    }
+
+    /**
+     * Streams every match for the criteria in the given format.
+     *
+     * @return the number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long export(SearchCriteria criteria, Format format, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long rows = 0;
+        try (Stream<SearchResultDTO> results = postgresSearchEngine.stream(criteria);
+                JsonGenerator json = (format == Format.NDJSON) ? ndjsonGenerator(writer) : null) {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            Iterator<SearchResultDTO> iterator = results.iterator();
+            while (iterator.hasNext()) {
+                SearchResultDTO result = iterator.next();
+                if (json == null) {
+                    writeCsv(writer, result);
+                } else {
+                    SearchJsonModule.writeResult(json, result);
+                }
+                rows++;
+            }
+            if (json != null) {
+                if (rows > 0) {
+                    json.writeRaw('\n');
+                }
+                json.flush();
+            }
+            writer.flush();
+        } catch (JacksonIOException e) {
+            // The generator wraps write failures
+            log.info("Export aborted after {} rows, client went away: {}", rows, e.getCause().getMessage());
+            throw (IOException) e.getCause();
+        } catch (IOException e) {
+            log.info("Export aborted after {} rows, client went away: {}", rows, e.getMessage());
+            throw e;
+        }
+        log.info("Exported {} rows as {} in {}ms", rows, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    /**
+     * One generator for the whole export: objects are separated by newlines
+     * and the writer is left open for the caller.
+     */
+    private JsonGenerator ndjsonGenerator(Writer writer) {
+        return jsonMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(writer);
+    }
+
+    private static void writeCsv(Writer writer, SearchResultDTO result) throws IOException {
+        csv(writer, (result.getId() != null) ? result.getId().toString() : null);
+        writer.write(',');
+        csv(writer, result.getType());
+        writer.write(',');
+        csv(writer, result.getRegion());
+        writer.write(',');
+        csv(writer, result.getField());
+        writer.write(',');
+        csv(writer, result.getTitle());
+        writer.write(',');
+        csv(writer, (result.getYear() != null) ? result.getYear().toString() : null);
+        writer.write(',');
+        csv(writer, result.getLink());
+        writer.write(',');
+        csv(writer, result.getAuthors());
+        writer.write(',');
+        csv(writer, result.getSource());
+        writer.write(',');
+        csv(writer, result.getCitation());
+        writer.write(',');
+        csv(writer, (result.getKeywords() != null) ? String.join(";", result.getKeywords()) : null);
+        writer.write('\n');
+    }
+
+    // RFC 4180: quote when needed, doubling embedded quotes
+    private static void csv(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
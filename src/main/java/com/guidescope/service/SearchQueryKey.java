@@ -0,0 +1,59 @@
+package com.guidescope.service;
+
+import com.guidescope.search.SearchCriteria;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SearchQueryKey identifies the shape of a search independently of paging:
+ * corpus version, query, filters. Used as (part of) the key of the search
+ * caches.
+ *
+ * The query is lower-cased only; both exact title and websearch matching are
+ * case-insensitive but punctuation-sensitive.
+ */
+@Value
+public class SearchQueryKey {
+    long corpusVersion;
+    String query;
+    String prefixQuery;
+    String slug;
+    boolean exact;
+    List<String> types;
+    String region;
+    String field;
+    Integer yearFrom;
+    Integer yearTo;
+
+    public static SearchQueryKey of(long corpusVersion, SearchCriteria criteria) {
+        List<String> types = null;
+        if (criteria.getTypes() != null && criteria.getTypes().length > 0) {
+            types = Arrays.stream(criteria.getTypes()).sorted().distinct().toList();
+        }
+        String query = (criteria.getQuery() == null) ? "" : criteria.getQuery().toLowerCase(Locale.ROOT);
+        return new SearchQueryKey(corpusVersion, query, criteria.getPrefixQuery(), criteria.getSlug(),
+                criteria.isExact(), types, criteria.getRegion(), criteria.getField(), criteria.getYearFrom(),
+                criteria.getYearTo());
+    }
+
+    /**
+     * Rough retained size in bytes, for cache weighers.
+     */
+    long estimatedSize() {
+        long bytes = 64 + sizeOf(query) + sizeOf(prefixQuery) + sizeOf(slug) + sizeOf(region) + sizeOf(field);
+        if (types != null) {
+            for (String type : types) {
+                bytes += sizeOf(type);
+            }
+        }
+        return bytes;
+    }
+
+    static long sizeOf(String value) {
+        // String header + compact (Latin-1) payload
+        return (value == null) ? 0 : 40 + value.length();
+    }
+}
@@ -0,0 +1,127 @@
+package com.guidescope.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.guidescope.dto.SearchResponseDTO;
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.search.SearchField;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * SearchResultCache keeps recent /search responses in memory.
+ *
+ * Characteristics:
+ * - Caffeine W-TinyLFU eviction, so the few hundred hot clinical queries stay
+ * resident while one-off queries are rejected
+ * - Bounded by an estimated byte budget (app.search.cache.max-size)
+ * - Keys include the corpus version, and the whole cache is dropped on
+ * CorpusChangedEvent
+ * - Hit/miss/eviction metrics are published as cache.* meters tagged
+ * cache=search.results
+ */
+@Component
+@Slf4j
+public class SearchResultCache {
+
+    public static final String CACHE_NAME = "search.results";
+
+    // Rough JVM footprint of an object header, used by the weigher
+    private static final int OBJECT_OVERHEAD = 16;
+
+    private final Cache<Key, SearchResponseDTO> cache;
+
+    public SearchResultCache(
+            @Value("${app.search.cache.enabled:true}") boolean enabled,
+            @Value("${app.search.cache.max-size:64MB}") DataSize maxSize,
+            MeterRegistry meterRegistry) {
+        if (!enabled) {
+            log.info("Search result cache disabled");
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher(SearchResultCache::weigh)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        log.info("Search result cache enabled with a budget of {}", maxSize);
+    }
+
+    /**
+     * Returns the cached response for the key, computing and storing it on a
+     * miss.
+     */
+    public SearchResponseDTO get(Key key, Supplier<SearchResponseDTO> loader) {
+        if (cache == null) {
+            return loader.get();
+        }
+        return cache.get(key, k -> loader.get());
+    }
+
+    public void invalidate(Key key) {
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    // Runs after the in-memory indexes have been rebuilt for the new version
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCorpusChanged() {
+        if (cache != null) {
+            cache.invalidateAll();
+            log.info("Search result cache invalidated after corpus change");
+        }
+    }
+
+    private static int weigh(Key key, SearchResponseDTO response) {
+        long bytes = OBJECT_OVERHEAD * 2L + key.query.estimatedSize();
+        if (response.getResults() != null) {
+            for (SearchResultDTO result : response.getResults()) {
+                bytes += OBJECT_OVERHEAD * 2L
+                        + sizeOf(result.getType()) + sizeOf(result.getRegion()) + sizeOf(result.getField())
+                        + sizeOf(result.getTitle()) + sizeOf(result.getLink()) + sizeOf(result.getAuthors())
+                        + sizeOf(result.getSource()) + sizeOf(result.getCitation());
+                if (result.getKeywords() != null) {
+                    for (String keyword : result.getKeywords()) {
+                        bytes += sizeOf(keyword);
+                    }
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long sizeOf(String value) {
+        return SearchQueryKey.sizeOf(value);
+    }
+
+    /**
+     * Cache key: the query shape plus the requested page and projection.
+     * There is no sort: SearchService rejects a sorted Pageable.
+     */
+    @lombok.Value
+    public static class Key {
+        SearchQueryKey query;
+        int page;
+        int size;
+        Set<SearchField> fields;
+
+        public static Key of(SearchQueryKey query, Pageable pageable, Set<SearchField> fields) {
+            return new Key(query, pageable.getPageNumber(), pageable.getPageSize(), fields);
+        }
+    }
+}
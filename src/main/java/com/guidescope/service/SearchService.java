@@ -1,19 +1,41 @@
 package com.guidescope.service;
 
 import com.guidescope.dto.SearchCapabilitiesDTO;
+import com.guidescope.dto.SearchFacetsDTO;
 import com.guidescope.dto.SearchResponseDTO;
 import com.guidescope.dto.SearchResultDTO;
 import com.guidescope.repository.DocumentRepository;
+import com.guidescope.search.AutocompleteEngine;
+import com.guidescope.search.NormalizedQuery;
+import com.guidescope.search.QueryNormalizer;
+import com.guidescope.search.QueryShape;
+import com.guidescope.search.SearchCriteria;
+import com.guidescope.search.SearchCursor;
+import com.guidescope.search.SearchEngine;
+import com.guidescope.search.SearchField;
+import com.guidescope.search.SearchMetrics;
+import com.guidescope.search.SearchSlice;
+import com.guidescope.search.SearchTotal;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.TimeUnit;
 
@@ -23,7 +45,13 @@ import java.util.concurrent.TimeUnit;
  * Responsibilities:
  * - Normalize and sanitize search input
  * - Validate parameters (e.g. q.length, limit bounds)
- * - Coordinate repository calls for FTS execution
+ * - Coordinate repository calls and SearchEngine execution
+ * - Serve repeated searches from SearchResultCache
+ * - Cache capabilities until the next corpus change (24h at most)
+ * - Count each query shape once (SearchCountCache), exactly or as an estimate,
+ * concurrently with the page query
+ * - Delegate facet counting to FacetService and exports to SearchExportService
+ * - Time each stage per query shape (SearchMetrics, search.stage)
  * - Encapsulate search business rules
  */
 @Service
@@ -33,10 +61,28 @@ public class SearchService {
 
     private final DocumentRepository documentRepository;
     private final SystemStatsService systemStatsService;
-
-    private final AtomicReference<SearchCapabilitiesDTO> capabilitiesCache = new AtomicReference<>();
-    private long lastCacheUpdate = 0;
+    private final SearchEngine searchEngine;
+    private final AutocompleteEngine autocompleteEngine;
+    private final SearchResultCache searchResultCache;
+    private final SearchCountCache searchCountCache;
+    private final CorpusVersionService corpusVersionService;
+    private final FacetService facetService;
+    private final SearchExportService searchExportService;
+    private final SearchMetrics searchMetrics;
+
+    private final AtomicReference<CachedCapabilities> capabilitiesCache = new AtomicReference<>();
     private static final long CACHE_TTL = TimeUnit.HOURS.toMillis(24);
+    private static final int AUTOCOMPLETE_LIMIT = 5;
+    private static final String COUNT_MODE_ESTIMATE = "estimate";
+
+    @Value("${app.search.count.mode:exact}")
+    private String countMode;
+
+    @Value("${app.search.count.exact-threshold:1000}")
+    private long exactCountThreshold;
+
+    @Value("${app.search.count.timeout:300ms}")
+    private Duration countTimeout;
 
     /**
      * Exposes dynamic search capabilities derived from the database.
@@ -45,10 +91,11 @@ public class SearchService {
     @Transactional(readOnly = true)
     public SearchCapabilitiesDTO getCapabilities() {
         long now = System.currentTimeMillis();
-        SearchCapabilitiesDTO cached = capabilitiesCache.get();
+        long version = corpusVersionService.currentVersion();
+        CachedCapabilities cached = capabilitiesCache.get();
 
-        if (cached != null && (now - lastCacheUpdate) < CACHE_TTL) {
-            return cached;
+        if (cached != null && cached.version() == version && (now - cached.loadedAt()) < CACHE_TTL) {
+            return cached.capabilities();
         }
 
         log.info("Refreshing search capabilities cache from database...");
@@ -79,170 +126,253 @@ public class SearchService {
                 .yearRange(yearRange)
                 .build();
 
-        capabilitiesCache.set(capabilities);
-        lastCacheUpdate = now;
+        // Tagged with the version read before loading: if the corpus changed
+        // meanwhile, the next call sees another version and loads again
+        capabilitiesCache.set(new CachedCapabilities(version, now, capabilities));
 
         return capabilities;
     }
 
+    // Cached capabilities are only served for their own corpus version; this just frees them early
+    @EventListener(CorpusChangedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void invalidateCapabilities() {
+        capabilitiesCache.set(null);
+        log.info("Capabilities cache invalidated after corpus change");
+    }
+
     /**
      * Performs a normalized search operation.
      * Validates that at least one search criterion is provided.
+     * Execution is delegated to the configured SearchEngine, which owns its own
+     * transaction boundary (the in-memory engine needs no connection at all).
+     *
+     * Cursor mode is selected by a non-null cursor ("*" for the first page): rows
+     * continue after the (score, year, id) key encoded in the cursor, page.size
+     * is the page length and the total is only counted when includeTotal is
+     * true. Otherwise the Pageable is used for classic offset paging.
+     *
+     * fields limits the result properties returned (all when empty). Results
+     * are always ordered by relevance, so a sort on the Pageable is rejected.
      */
-    @Transactional(readOnly = true)
     public SearchResponseDTO search(String query, String[] types, String region, String field,
-            Integer yearFrom, Integer yearTo, String slug, Boolean exact,
-            Pageable pageable) {
-
-        // Normalize and sanitize search input
-        String normalizedQuery = (query == null) ? "" : query.trim().toLowerCase();
-        // Replace non-alphanumeric characters (except whitespace) with space to prevent
-        // tsquery syntax errors
-        normalizedQuery = normalizedQuery.replaceAll("[^a-z0-9\\s]", " ");
-        // Collapse multiple spaces
-        normalizedQuery = normalizedQuery.replaceAll("\\s+", " ").trim();
-
-        // Format for tsquery: replace spaces with ":* & " and append ":*"
-        // This supports the "Related/Partial" search via to_tsquery
-        String prefixQuery = "";
-        if (!normalizedQuery.isEmpty() && (exact == null || !exact)) {
-            prefixQuery = normalizedQuery.replaceAll("\\s+", ":* & ") + ":*";
+            Integer yearFrom, Integer yearTo, String slug, Boolean exact, String[] fields,
+            Pageable pageable, String cursor, Boolean includeTotal) {
+        long normalizeStart = System.nanoTime();
+        // Decode and parse first so a malformed token or field list fails fast with 400
+        if (pageable.getSort().isSorted()) {
+            throw new IllegalArgumentException(
+                    "sort is not supported: results are ordered by relevance, then year and id");
         }
+        SearchCursor after = (cursor != null) ? SearchCursor.decode(cursor) : null;
+        Set<SearchField> resultFields = SearchField.parse(fields);
 
-        // CRITICAL FIX: For the main query parameter passed to the repository,
-        // we must use the original (trimmed) query, NOT the stripped one.
-        // This is because the repository uses this parameter for:
-        // 1. Exact Title Match (lower(title) = lower(:query)) -> Needs punctuation!
-        // 2. websearch_to_tsquery(:query) -> Handles punctuation safely itself!
-        //
-        // The previous 'normalizedQuery' stripped all special chars, breaking exact
-        // matching
-        // for titles like "AHA/ACC..." and potentially confusing websearch_to_tsquery.
-        String tsQuery = (query == null) ? "" : query.trim();
-
-        log.info(
-                "Performing search - Q: '{}', prefixQuery: '{}', Slug: '{}', Exact: {}, Types: {}, Region: {}, Field: {}, Year: {}-{}, Pageable: {}",
-                normalizedQuery, prefixQuery, slug, exact, types, region, field, yearFrom, yearTo, pageable);
-
-        boolean hasFilters = (types != null && types.length > 0) || region != null || field != null || yearFrom != null
-                || yearTo != null;
-        boolean hasQuery = !normalizedQuery.isEmpty();
-        boolean hasSlug = (slug != null && !slug.isEmpty());
-
-        if (!hasQuery && !hasFilters && !hasSlug) {
+        SearchCriteria criteria = SearchCriteria.of(query, types, region, field, yearFrom, yearTo, slug, exact,
+                resultFields);
+        searchMetrics.record(SearchMetrics.Operation.SEARCH, SearchMetrics.Stage.NORMALIZE, QueryShape.of(criteria),
+                System.nanoTime() - normalizeStart);
+
+        log.debug(
+                "Performing search - Q: '{}', prefixQuery: '{}', Slug: '{}', Exact: {}, Types: {}, Region: {}, Field: {}, Year: {}-{}, Pageable: {}, Cursor: {}",
+                criteria.getNormalizedQuery(), criteria.getPrefixQuery(), slug, exact, types, region, field, yearFrom,
+                yearTo, pageable, cursor);
+
+        if (!criteria.isSearch()) {
             log.debug("Aborting search: no query, no filters, and no slug provided");
             return SearchResponseDTO.builder()
                     .results(new ArrayList<>())
-                    .total(0)
+                    .total(0L)
                     .limit(pageable.getPageSize())
-                    .offset((int) pageable.getOffset())
+                    .offset((cursor != null) ? null : (int) pageable.getOffset())
                     .build();
         }
 
         // Increment search count
         systemStatsService.recordSearch();
 
-        Page<Object[]> resultsPage = documentRepository.searchDocuments(
-                tsQuery,
-                prefixQuery,
-                slug,
-                types,
-                region,
-                field,
-                yearFrom,
-                yearTo,
-                pageable);
-
-        long totalCount = resultsPage.getTotalElements();
-
-        log.info("Found {} total results ({} in current page) for query: '{}', slug: '{}'", totalCount,
-                resultsPage.getContent().size(), normalizedQuery, slug);
-
-        List<SearchResultDTO> dtos = resultsPage.getContent().stream().map(row -> {
-            try {
-                // row mapping:
-                // 0:id, 1:type, 2:region, 3:field, 4:title, 5:year, 6:link, 7:authors,
-                // 8:source, 9:citation, 10:keywords, 11:score
-
-                // Safely handle keywords (java.sql.Array to String[])
-                String[] keywords = null;
-                if (row[10] != null) {
-                    if (row[10] instanceof java.sql.Array javaArray) {
-                        keywords = (String[]) javaArray.getArray();
-                    } else if (row[10] instanceof String[] strArray) {
-                        keywords = strArray;
-                    }
-                }
+        SearchQueryKey queryKey = SearchQueryKey.of(corpusVersionService.currentVersion(), criteria);
 
-                return SearchResultDTO.builder()
-                        .id((UUID) row[0])
-                        .type((String) row[1])
-                        .region((String) row[2])
-                        .field((String) row[3])
-                        .title((String) row[4])
-                        .year((Integer) row[5])
-                        .link((String) row[6])
-                        .authors((String) row[7])
-                        .source((String) row[8])
-                        .citation((String) row[9])
-                        .keywords(keywords)
-                        .build();
-            } catch (Exception e) {
-                log.error("Error mapping search result row: {}", e.getMessage(), e);
-                throw new RuntimeException("Error mapping search result", e);
+        if (cursor != null) {
+            // Keyset pages are not cached: each cursor is typically requested once
+            return executeAfter(criteria, queryKey, after, pageable.getPageSize(),
+                    includeTotal != null && includeTotal);
+        }
+
+        SearchResultCache.Key cacheKey = SearchResultCache.Key.of(queryKey, pageable, resultFields);
+        AtomicBoolean degraded = new AtomicBoolean();
+        SearchResponseDTO response = searchResultCache.get(cacheKey,
+                () -> execute(criteria, queryKey, pageable, degraded));
+        if (degraded.get()) {
+            // Let the next request pick up the real total once the count finishes
+            searchResultCache.invalidate(cacheKey);
+        }
+        return response;
+    }
+
+    /**
+     * Runs the search on the configured SearchEngine (result cache miss path).
+     * The count is started first and runs on its own connection while the page
+     * is fetched. If it is not ready app.search.count.timeout after the page,
+     * the page is returned with a lower-bound total (offset + rows) marked
+     * approximate, degraded is set so the response is not cached, and the
+     * count completes into SearchCountCache for the next request.
+     */
+    private SearchResponseDTO execute(SearchCriteria criteria, SearchQueryKey queryKey, Pageable pageable,
+            AtomicBoolean degraded) {
+        CompletableFuture<SearchTotal> pendingTotal = resolveTotal(criteria, queryKey);
+        List<SearchResultDTO> results = searchMetrics.time(SearchMetrics.Operation.SEARCH,
+                SearchMetrics.Stage.QUERY, QueryShape.of(criteria), () -> searchEngine.search(criteria, pageable));
+
+        SearchTotal total;
+        if (results.size() < pageable.getPageSize() && (!results.isEmpty() || pageable.getOffset() == 0)) {
+            // A short page is the last one, so the total is already known
+            total = SearchTotal.exact(pageable.getOffset() + results.size());
+        } else {
+            total = awaitTotal(pendingTotal, criteria);
+            if (total == null) {
+                degraded.set(true);
+                total = SearchTotal.approximate(pageable.getOffset() + results.size());
             }
-        }).toList();
+        }
+
+        log.debug("Found {} total results ({} in current page, exact: {}) for query: '{}', slug: '{}'",
+                total.getValue(), results.size(), total.isExact(), criteria.getNormalizedQuery(),
+                criteria.getSlug());
 
         return SearchResponseDTO.builder()
-                .results(dtos)
-                .total(totalCount)
+                .results(results)
+                .total(total.getValue())
+                .totalApproximate(total.isExact() ? null : Boolean.TRUE)
                 .limit(pageable.getPageSize())
                 .offset((int) pageable.getOffset())
                 .build();
     }
 
+    /**
+     * Runs a keyset page on the configured SearchEngine. When includeTotal is
+     * set the count runs alongside the page; if it does not finish in time the
+     * total is left out.
+     */
+    private SearchResponseDTO executeAfter(SearchCriteria criteria, SearchQueryKey queryKey, SearchCursor after,
+            int limit, boolean includeTotal) {
+        CompletableFuture<SearchTotal> pendingTotal = includeTotal ? resolveTotal(criteria, queryKey) : null;
+        SearchSlice slice = searchMetrics.time(SearchMetrics.Operation.SEARCH, SearchMetrics.Stage.QUERY,
+                QueryShape.of(criteria), () -> searchEngine.searchAfter(criteria, after, limit));
+        SearchTotal total = includeTotal ? awaitTotal(pendingTotal, criteria) : null;
+
+        log.debug("Found {} results in keyset page (total: {}, more: {}) for query: '{}', slug: '{}'",
+                slice.getResults().size(), (total != null) ? total.getValue() : null, slice.getNext() != null,
+                criteria.getNormalizedQuery(), criteria.getSlug());
+
+        return SearchResponseDTO.builder()
+                .results(slice.getResults())
+                .total((total != null) ? total.getValue() : null)
+                .totalApproximate((total != null && !total.isExact()) ? Boolean.TRUE : null)
+                .limit(limit)
+                .nextCursor((slice.getNext() != null) ? slice.getNext().encode() : null)
+                .build();
+    }
+
+    /**
+     * Returns the total for the query shape from SearchCountCache, counting on
+     * the engine only once per shape. In "estimate" count mode the count is
+     * exact up to app.search.count.exact-threshold and estimated above it.
+     */
+    private CompletableFuture<SearchTotal> resolveTotal(SearchCriteria criteria, SearchQueryKey queryKey) {
+        long threshold = COUNT_MODE_ESTIMATE.equalsIgnoreCase(countMode) ? exactCountThreshold : 0;
+        return searchCountCache.get(queryKey, () -> searchMetrics.time(SearchMetrics.Operation.SEARCH,
+                SearchMetrics.Stage.COUNT, QueryShape.of(criteria), () -> searchEngine.count(criteria, threshold)));
+    }
+
+    /**
+     * Waits up to app.search.count.timeout for the count; null when it timed
+     * out or failed.
+     */
+    private SearchTotal awaitTotal(CompletableFuture<SearchTotal> pendingTotal, SearchCriteria criteria) {
+        try {
+            return pendingTotal.get(countTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Count for query '{}' exceeded {}, returning a partial total", criteria.getNormalizedQuery(),
+                    countTimeout);
+        } catch (ExecutionException e) {
+            log.error("Count for query '{}' failed, returning a partial total: {}", criteria.getNormalizedQuery(),
+                    e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Returns per-type, per-region, per-field and per-year counts for the query
+     * and filters. With no query, slug or filters the whole catalogue is
+     * counted.
+     */
+    public SearchFacetsDTO getFacets(String query, String[] types, String region, String field,
+            Integer yearFrom, Integer yearTo, String slug, Boolean exact) {
+        SearchCriteria criteria = SearchCriteria.of(query, types, region, field, yearFrom, yearTo, slug, exact, null);
+        log.debug("Computing facets - Q: '{}', Slug: '{}', Types: {}, Region: {}, Field: {}, Year: {}-{}",
+                criteria.getNormalizedQuery(), slug, types, region, field, yearFrom, yearTo);
+        return facetService.facets(criteria);
+    }
+
+    /**
+     * Streams every match for the query and filters to out. With no query, slug
+     * or filters the whole catalogue is exported.
+     */
+    public void export(String query, String[] types, String region, String field, Integer yearFrom,
+            Integer yearTo, String slug, Boolean exact, SearchExportService.Format format, OutputStream out)
+            throws IOException {
+        SearchCriteria criteria = SearchCriteria.of(query, types, region, field, yearFrom, yearTo, slug, exact, null);
+        log.info("Exporting search as {} - Q: '{}', Slug: '{}', Types: {}, Region: {}, Field: {}, Year: {}-{}",
+                format, criteria.getNormalizedQuery(), slug, types, region, field, yearFrom, yearTo);
+        searchExportService.export(criteria, format, out);
+    }
+
     /**
      * Provides autocomplete suggestions for search assistance.
      * Triggers only for queries with length >= 3.
+     * Execution is delegated to the configured AutocompleteEngine.
      */
-    @Transactional(readOnly = true)
     public List<com.guidescope.dto.AutocompleteResponseDTO.Suggestion> getAutocompleteSuggestions(
             String query, String[] types, String region, String field, Integer yearFrom, Integer yearTo) {
         if (query == null || query.trim().length() < 3) {
             return List.of();
         }
 
-        String sanitized = query.trim().toLowerCase();
-        // Replace non-alphanumeric characters (except whitespace) with space
-        sanitized = sanitized.replaceAll("[^a-z0-9\\s]", " ");
-        // Collapse multiple spaces
-        sanitized = sanitized.replaceAll("\\s+", " ").trim();
+        long normalizeStart = System.nanoTime();
+        NormalizedQuery normalized = QueryNormalizer.normalize(query, false);
+        String sanitized = normalized.getNormalized();
 
-        log.info("Fetching autocomplete suggestions for: {} with filters [types={}, region={}, field={}, year={}-{}]",
+        log.debug("Fetching autocomplete suggestions for: {} with filters [types={}, region={}, field={}, year={}-{}]",
                 sanitized, types, region, field, yearFrom, yearTo);
 
+        SearchCriteria criteria = SearchCriteria.builder()
+                .normalizedQuery(sanitized)
+                .tokens(normalized.getTokens())
+                .types(types)
+                .region(region)
+                .field(field)
+                .yearFrom(yearFrom)
+                .yearTo(yearTo)
+                .build();
+        QueryShape shape = QueryShape.of(criteria);
+        searchMetrics.record(SearchMetrics.Operation.AUTOCOMPLETE, SearchMetrics.Stage.NORMALIZE, shape,
+                System.nanoTime() - normalizeStart);
+
         try {
-            List<Object[]> rows = documentRepository.findAutocompleteSuggestions(
-                    sanitized, types, region, field, yearFrom, yearTo);
-
-            return rows.stream()
-                    .filter(row -> row != null && row.length >= 2) // Ensure we have both title and slug
-                    .map(row -> {
-                        try {
-                            String title = (row[0] != null) ? (String) row[0] : "";
-                            String slug = (row[1] != null) ? (String) row[1] : "";
-                            return new com.guidescope.dto.AutocompleteResponseDTO.Suggestion(title, slug);
-                        } catch (Exception e) {
-                            log.error("Error mapping autocomplete suggestion row: {}", e.getMessage(), e);
-                            return null;
-                        }
-                    })
-                    .filter(suggestion -> suggestion != null && !suggestion.getTitle().isEmpty())
-                    .toList();
+            return searchMetrics.time(SearchMetrics.Operation.AUTOCOMPLETE, SearchMetrics.Stage.SUGGEST, shape,
+                    () -> autocompleteEngine.suggest(criteria, AUTOCOMPLETE_LIMIT));
         } catch (Exception e) {
             log.error("Error fetching autocomplete suggestions for query '{}': {}", sanitized, e.getMessage(), e);
             // Return empty list instead of throwing to prevent 500 errors
             return List.of();
         }
     }
+
+    /**
+     * Capabilities with the corpus version they were loaded for.
+     */
+    private record CachedCapabilities(long version, long loadedAt, SearchCapabilitiesDTO capabilities) {
+    }
 }
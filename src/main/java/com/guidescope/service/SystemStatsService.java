@@ -2,13 +2,24 @@ package com.guidescope.service;
 
 import com.guidescope.model.SystemStats;
 import com.guidescope.repository.SystemStatsRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * SystemStatsService centralizes all platform analytics tracking.
+ *
+ * Counting is write-behind:
+ * - recordVisit()/recordSearch() only bump in-memory LongAdders
+ * - A background flusher adds the pending deltas to the system_stats row every
+ * app.stats.flush-interval, and once more on shutdown
+ * - Deltas are applied as relative increments, so several nodes can flush to
+ * the same row without losing counts
  */
 @Service
 @RequiredArgsConstructor
@@ -17,27 +28,60 @@ public class SystemStatsService {
 
     private final SystemStatsRepository systemStatsRepository;
 
+    private final LongAdder pendingVisits = new LongAdder();
+    private final LongAdder pendingSearches = new LongAdder();
+
+    /**
+     * Returns the persisted counters plus the deltas not yet flushed by this
+     * node.
+     */
     @Transactional(readOnly = true)
     public SystemStats getStats() {
-        return systemStatsRepository.findById(1L)
+        SystemStats persisted = systemStatsRepository.findById(1L)
                 .orElseGet(() -> SystemStats.builder().id(1L).visitCount(0L).searchCount(0L).build());
+        return SystemStats.builder()
+                .id(persisted.getId())
+                .visitCount(persisted.getVisitCount() + pendingVisits.sum())
+                .searchCount(persisted.getSearchCount() + pendingSearches.sum())
+                .build();
     }
 
     public void recordVisit() {
-        try {
-            systemStatsRepository.incrementVisitCount();
-            log.debug("Visit recorded");
-        } catch (Exception e) {
-            log.error("Failed to record visit: {}", e.getMessage());
-        }
+        pendingVisits.increment();
     }
 
     public void recordSearch() {
+        pendingSearches.increment();
+    }
+
+    /**
+     * Writes the pending deltas to the database. On failure the deltas are put
+     * back so the next flush retries them.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:5s}", initialDelayString = "${app.stats.flush-interval:5s}")
+    public void flush() {
+        long visits = pendingVisits.sumThenReset();
+        long searches = pendingSearches.sumThenReset();
+        if (visits == 0 && searches == 0) {
+            return;
+        }
+
         try {
-            systemStatsRepository.incrementSearchCount();
-            log.debug("Search recorded");
+            int updated = systemStatsRepository.addCounts(visits, searches);
+            if (updated == 0) {
+                throw new IllegalStateException("system_stats row with id=1 is missing");
+            }
+            log.debug("Flushed stats delta: {} visits, {} searches", visits, searches);
         } catch (Exception e) {
-            log.error("Failed to record search: {}", e.getMessage());
+            pendingVisits.add(visits);
+            pendingSearches.add(searches);
+            log.error("Failed to flush stats delta ({} visits, {} searches): {}", visits, searches, e.getMessage());
         }
     }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing pending stats before shutdown...");
+        flush();
+    }
 }
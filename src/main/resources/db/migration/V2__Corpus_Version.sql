@@ -0,0 +1,23 @@
+-- GuideScope V2: Corpus Version
+-- Single-row counter bumped by every statement that changes the documents
+-- table. In-process caches and indexes compare it to detect catalogue updates.
+
+CREATE TABLE IF NOT EXISTS corpus_state (
+    id INTEGER PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+INSERT INTO corpus_state (id, version)
+VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-- Statement-level: a bulk load bumps the version once, not once per row
+CREATE OR REPLACE FUNCTION documents_corpus_version_trigger() RETURNS trigger AS $$
+BEGIN
+  UPDATE corpus_state SET version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = 1;
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS corpusversionupdate ON documents;
+CREATE TRIGGER corpusversionupdate AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE
+ON documents FOR EACH STATEMENT EXECUTE FUNCTION documents_corpus_version_trigger();
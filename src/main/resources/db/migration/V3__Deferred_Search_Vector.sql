@@ -0,0 +1,20 @@
+-- GuideScope V3: Let bulk loads supply search_vector themselves
+-- The bulk ingest (DocumentIngestService) computes search vectors set-wise
+-- while merging from its staging table. The per-row trigger now keeps a
+-- vector supplied by the statement and only computes one when the statement
+-- does not provide it (NULL on INSERT, unchanged on UPDATE).
+
+CREATE OR REPLACE FUNCTION documents_search_vector_trigger() RETURNS trigger AS $$
+BEGIN
+  IF TG_OP = 'INSERT' AND new.search_vector IS NOT NULL THEN
+    return new;
+  END IF;
+  IF TG_OP = 'UPDATE' AND new.search_vector IS DISTINCT FROM old.search_vector THEN
+    return new;
+  END IF;
+  new.search_vector :=
+    setweight(to_tsvector('english', coalesce(new.title,'')), 'A') ||
+    setweight(to_tsvector('english', coalesce(new.authors,'')), 'B');
+  return new;
+END
+$$ LANGUAGE plpgsql;
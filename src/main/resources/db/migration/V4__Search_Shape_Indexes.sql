@@ -0,0 +1,13 @@
+-- GuideScope V4: Indexes for the shape-specialized search statements
+-- SearchSql writes out only the predicates a request uses, so each of them
+-- can be answered from an index:
+-- - slug lookups probe idx_documents_slug (the unique key leads with type and
+--   year, so it cannot serve a slug alone)
+-- - exact title matches probe idx_documents_lower_title, which also lets the
+--   slug/title/FTS disjunction run as a BitmapOr instead of a sequential scan
+-- - filter-only browsing reads idx_documents_year_id in (year DESC, id) order
+--   and stops after the page
+
+CREATE INDEX IF NOT EXISTS idx_documents_slug ON documents (slug);
+CREATE INDEX IF NOT EXISTS idx_documents_lower_title ON documents (lower(title));
+CREATE INDEX IF NOT EXISTS idx_documents_year_id ON documents (year DESC, id);
@@ -0,0 +1,126 @@
+-- GuideScope V5: Materialized autocomplete suggestions
+-- One row per suggestible phrase of a document, so a keystroke is a btree
+-- prefix range scan over short phrases instead of a full-text rank and ILIKE
+-- scan over documents.
+--
+-- Phrases are normalized like QueryNormalizer (lower case, runs of
+-- non-alphanumerics collapsed to one space):
+-- - kind 0: the title (its first 8 words)
+-- - kind 1: the title from each later word on (up to 8 words), so a prefix
+--   of any title word matches
+-- - kind 2: each keyword
+--
+-- popularity counts how often the document was opened by slug (fed from the
+-- search event log, see SuggestionPopularity) and survives rebuilds of the
+-- document's phrases.
+
+CREATE TABLE IF NOT EXISTS autocomplete_suggestions (
+    document_id UUID NOT NULL,
+    phrase TEXT NOT NULL,
+    kind SMALLINT NOT NULL,
+    popularity REAL NOT NULL DEFAULT 0,
+    title TEXT NOT NULL,
+    slug TEXT NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    region VARCHAR(100) NOT NULL,
+    field VARCHAR(100) NOT NULL,
+    year INTEGER NOT NULL,
+    PRIMARY KEY (document_id, kind, phrase)
+);
+
+-- LIKE 'prefix%' range scans, whatever the database collation
+CREATE INDEX IF NOT EXISTS idx_autocomplete_suggestions_phrase
+    ON autocomplete_suggestions (phrase text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_autocomplete_suggestions_slug ON autocomplete_suggestions (slug);
+
+CREATE OR REPLACE FUNCTION autocomplete_phrases(title TEXT, keywords TEXT[])
+RETURNS TABLE (phrase TEXT, kind SMALLINT) AS $$
+  WITH words AS (
+    SELECT string_to_array(btrim(regexp_replace(lower(title), '[^[:alnum:]]+', ' ', 'g')), ' ') AS w
+  )
+  SELECT array_to_string(w[i:i + 7], ' '), CAST(CASE WHEN i = 1 THEN 0 ELSE 1 END AS SMALLINT)
+  FROM words, generate_subscripts(w, 1) AS i
+  UNION
+  SELECT normalized, CAST(2 AS SMALLINT)
+  FROM unnest(keywords) AS k,
+       btrim(regexp_replace(lower(k), '[^[:alnum:]]+', ' ', 'g')) AS normalized
+  WHERE normalized <> ''
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Statement-level with transition tables: a bulk load rebuilds its documents'
+-- phrases in one INSERT ... SELECT, not once per row
+
+CREATE OR REPLACE FUNCTION autocomplete_suggestions_insert_trigger() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO autocomplete_suggestions (document_id, phrase, kind, title, slug, type, region, field, year)
+  SELECT d.id, p.phrase, p.kind, d.title, d.slug, d.type, d.region, d.field, d.year
+  FROM new_rows d CROSS JOIN LATERAL autocomplete_phrases(d.title, d.keywords) p
+  ON CONFLICT DO NOTHING;
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
+
+-- Upsert the current phrases (existing ones keep their popularity, new ones
+-- start from the document's), then drop the phrases that no longer apply
+CREATE OR REPLACE FUNCTION autocomplete_suggestions_update_trigger() RETURNS trigger AS $$
+BEGIN
+  INSERT INTO autocomplete_suggestions (document_id, phrase, kind, popularity, title, slug, type, region, field, year)
+  SELECT d.id, p.phrase, p.kind,
+         COALESCE((SELECT max(s.popularity) FROM autocomplete_suggestions s WHERE s.document_id = d.id), 0),
+         d.title, d.slug, d.type, d.region, d.field, d.year
+  FROM new_rows d CROSS JOIN LATERAL autocomplete_phrases(d.title, d.keywords) p
+  ON CONFLICT (document_id, kind, phrase) DO UPDATE SET
+    title = EXCLUDED.title,
+    slug = EXCLUDED.slug,
+    type = EXCLUDED.type,
+    region = EXCLUDED.region,
+    field = EXCLUDED.field,
+    year = EXCLUDED.year;
+
+  DELETE FROM autocomplete_suggestions s USING new_rows d
+  WHERE s.document_id = d.id
+    AND NOT EXISTS (
+      SELECT 1 FROM autocomplete_phrases(d.title, d.keywords) p WHERE p.phrase = s.phrase AND p.kind = s.kind
+    );
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION autocomplete_suggestions_delete_trigger() RETURNS trigger AS $$
+BEGIN
+  DELETE FROM autocomplete_suggestions s USING old_rows d WHERE s.document_id = d.id;
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION autocomplete_suggestions_truncate_trigger() RETURNS trigger AS $$
+BEGIN
+  TRUNCATE autocomplete_suggestions;
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS autocompletesuggestionsinsert ON documents;
+CREATE TRIGGER autocompletesuggestionsinsert AFTER INSERT ON documents
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION autocomplete_suggestions_insert_trigger();
+
+DROP TRIGGER IF EXISTS autocompletesuggestionsupdate ON documents;
+CREATE TRIGGER autocompletesuggestionsupdate AFTER UPDATE ON documents
+REFERENCING NEW TABLE AS new_rows
+FOR EACH STATEMENT EXECUTE FUNCTION autocomplete_suggestions_update_trigger();
+
+DROP TRIGGER IF EXISTS autocompletesuggestionsdelete ON documents;
+CREATE TRIGGER autocompletesuggestionsdelete AFTER DELETE ON documents
+REFERENCING OLD TABLE AS old_rows
+FOR EACH STATEMENT EXECUTE FUNCTION autocomplete_suggestions_delete_trigger();
+
+DROP TRIGGER IF EXISTS autocompletesuggestionstruncate ON documents;
+CREATE TRIGGER autocompletesuggestionstruncate AFTER TRUNCATE ON documents
+FOR EACH STATEMENT EXECUTE FUNCTION autocomplete_suggestions_truncate_trigger();
+
+-- Backfill the existing catalogue
+INSERT INTO autocomplete_suggestions (document_id, phrase, kind, title, slug, type, region, field, year)
+SELECT d.id, p.phrase, p.kind, d.title, d.slug, d.type, d.region, d.field, d.year
+FROM documents d CROSS JOIN LATERAL autocomplete_phrases(d.title, d.keywords) p
+ON CONFLICT DO NOTHING;
@@ -0,0 +1,16 @@
+-- GuideScope V6: Corpus change notifications
+-- The corpus version trigger also sends NOTIFY corpus_changed with the new
+-- version, so every application node (CorpusChangeListener) picks up a
+-- catalogue change right after its commit instead of at its next poll.
+-- Notifications are delivered on commit; a rolled back change sends none.
+
+CREATE OR REPLACE FUNCTION documents_corpus_version_trigger() RETURNS trigger AS $$
+DECLARE
+  new_version BIGINT;
+BEGIN
+  UPDATE corpus_state SET version = version + 1, updated_at = CURRENT_TIMESTAMP WHERE id = 1
+  RETURNING version INTO new_version;
+  PERFORM pg_notify('corpus_changed', new_version::text);
+  return NULL;
+END
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,17 @@
+-- GuideScope V7: Popular autocomplete phrases
+-- The autocomplete lookup read its candidates in phrase order and stopped
+-- after 200, so a popular phrase sorting after them was never ranked. The
+-- popular phrases (popularity > 0, i.e. selected at least once) get their own
+-- prefix index: every popular match of a prefix is ranked by popularity
+-- before truncating, and the phrase-order candidates only fill in the
+-- never-selected phrases, which all tie on popularity.
+--
+-- Both indexes are btree text_pattern_ops ranges rather than pg_trgm (which
+-- V1 already installs for idx_documents_title_trgm): a trigram index has no
+-- trigrams for the one- and two-character prefixes of the first keystrokes
+-- and returns matches in no useful order, while a btree range serves every
+-- prefix length; the word-suffix phrases cover matches inside a title.
+
+CREATE INDEX IF NOT EXISTS idx_autocomplete_suggestions_popular
+    ON autocomplete_suggestions (phrase text_pattern_ops)
+    WHERE popularity > 0;
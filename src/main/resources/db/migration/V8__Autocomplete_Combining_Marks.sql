@@ -0,0 +1,29 @@
+-- GuideScope V8: Keep combining marks inside autocomplete words
+-- V5 split phrases on [^[:alnum:]], which treats a combining mark as a
+-- separator: a decomposed "Ménière" became "me nie re", while
+-- QueryNormalizer keeps marks inside the word ("ménière") and the lookup
+-- missed. The combining mark blocks (diacritical marks, extended,
+-- supplement, for symbols, half marks) now count as word characters, as in
+-- QueryNormalizer. Marks of other blocks still separate words here.
+
+CREATE OR REPLACE FUNCTION autocomplete_phrases(title TEXT, keywords TEXT[])
+RETURNS TABLE (phrase TEXT, kind SMALLINT) AS $$
+  WITH words AS (
+    SELECT string_to_array(btrim(regexp_replace(lower(title),
+      '[^[:alnum:]\u0300-\u036f\u1ab0-\u1aff\u1dc0-\u1dff\u20d0-\u20ff\ufe20-\ufe2f]+', ' ', 'g')), ' ') AS w
+  )
+  SELECT array_to_string(w[i:i + 7], ' '), CAST(CASE WHEN i = 1 THEN 0 ELSE 1 END AS SMALLINT)
+  FROM words, generate_subscripts(w, 1) AS i
+  UNION
+  SELECT normalized, CAST(2 AS SMALLINT)
+  FROM unnest(keywords) AS k,
+       btrim(regexp_replace(lower(k),
+         '[^[:alnum:]\u0300-\u036f\u1ab0-\u1aff\u1dc0-\u1dff\u20d0-\u20ff\ufe20-\ufe2f]+', ' ', 'g')) AS normalized
+  WHERE normalized <> ''
+$$ LANGUAGE sql IMMUTABLE;
+
+-- Rebuild the phrases of documents with combining marks through the update
+-- trigger, which keeps their popularity and drops the split phrases
+UPDATE documents SET title = title
+WHERE title ~ '[\u0300-\u036f\u1ab0-\u1aff\u1dc0-\u1dff\u20d0-\u20ff\ufe20-\ufe2f]'
+   OR array_to_string(keywords, ' ') ~ '[\u0300-\u036f\u1ab0-\u1aff\u1dc0-\u1dff\u20d0-\u20ff\ufe20-\ufe2f]';
@@ -0,0 +1,112 @@
+package com.guidescope.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchEventRingTest {
+
+    @Test
+    void drainsInOfferOrder() {
+        SearchEventRing ring = new SearchEventRing(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(ring.offer(event(i)));
+        }
+
+        List<SearchEvent> drained = new ArrayList<>();
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertEquals(2, ring.size());
+        assertEquals(2, ring.drainTo(drained, 10));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, drained.get(i).getTimestamp());
+        }
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void dropsEventsWhenFullUntilDrained() {
+        SearchEventRing ring = new SearchEventRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(event(i)));
+        }
+
+        assertFalse(ring.offer(event(4)));
+
+        assertEquals(1, ring.drainTo(new ArrayList<>(), 1));
+        assertTrue(ring.offer(event(5)));
+    }
+
+    @Test
+    void wrapsAroundTheSlots() {
+        SearchEventRing ring = new SearchEventRing(2);
+        List<SearchEvent> drained = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            assertTrue(ring.offer(event(i)));
+            assertEquals(1, ring.drainTo(drained, 2));
+        }
+
+        assertEquals(7, drained.size());
+        assertEquals(6, drained.get(6).getTimestamp());
+    }
+
+    @Test
+    void deliversEveryEventOfConcurrentProducersOnce() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 10_000;
+        SearchEventRing ring = new SearchEventRing(1024);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(event(base + i))) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        Set<Long> seen = new HashSet<>();
+        List<SearchEvent> batch = new ArrayList<>();
+        while (seen.size() < producers * perProducer) {
+            batch.clear();
+            ring.drainTo(batch, 256);
+            for (SearchEvent event : batch) {
+                assertTrue(seen.add(event.getTimestamp()), "duplicate " + event.getTimestamp());
+            }
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchEventRing(0));
+        assertThrows(IllegalArgumentException.class, () -> new SearchEventRing(6));
+    }
+
+    private static SearchEvent event(long timestamp) {
+        return new SearchEvent(timestamp, "/search", "q", null, null, null, null, null, null, 200, 1, null);
+    }
+}
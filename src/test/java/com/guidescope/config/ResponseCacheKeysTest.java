@@ -0,0 +1,84 @@
+package com.guidescope.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheKeysTest {
+
+    @Test
+    void sharesAKeyAcrossSpellingsOfTheSameSearch() {
+        String key = key("/search", "q", "Heart Failure", "type", "guideline,review", "region", "US");
+
+        assertEquals(key, key("/search", "region", "US", "type", "review, guideline", "q", " heart failure ",
+                "utm_source", "mail"));
+        assertEquals(key, key("/search", "q", "heart failure", "type", "review", "type", "guideline",
+                "region", "US", "page", "0", "size", "20"));
+    }
+
+    @Test
+    void keepsInputsTheResponseDependsOn() {
+        String key = key("/search", "q", "heart failure");
+
+        assertNotEquals(key, key("/search", "q", "heart-failure"));
+        assertNotEquals(key, key("/search", "q", "heart failure", "exact", "true"));
+        assertNotEquals(key, key("/search", "q", "heart failure", "page", "1"));
+        assertNotEquals(key, key("/search", "q", "heart failure", "fields", "id,title"));
+        assertNotEquals(key, key("/search/facets", "q", "heart failure"));
+        assertNotEquals(key, ResponseCacheKeys.of(8, request("/search", "q", "heart failure")));
+        // A value can not be mistaken for the next parameter
+        assertNotEquals(key("/search", "region", "US&field=x"), key("/search", "region", "US", "field", "x"));
+    }
+
+    @Test
+    void cursorPagesIgnoreThePageNumber() {
+        String key = key("/search", "q", "stroke", "cursor", "abc");
+
+        assertEquals(key, key("/search", "q", "stroke", "cursor", "abc", "page", "3"));
+        assertNotEquals(key, key("/search", "q", "stroke", "cursor", "abc", "include_total", "true"));
+    }
+
+    @Test
+    void shortAutocompleteQueriesShareOneKey() {
+        assertEquals(key("/search/autocomplete", "q", "ab"), key("/search/autocomplete", "q", " x ", "region", "US"));
+        assertEquals(key("/search/autocomplete", "q", "Asthma!"), key("/search/autocomplete", "q", "asthma"));
+        assertNull(key("/search/autocomplete"));
+    }
+
+    @Test
+    void passesThroughWhatItCanNotDescribe() {
+        assertNull(key("/search", "q", "stroke", "sort", "year"));
+        assertNull(key("/search", "q", "stroke", "q", "asthma"));
+        assertNull(key("/search", "q", "stroke", "year_from", "2020a"));
+        assertNull(key("/search", "q", "stroke", "exact", "maybe"));
+        assertNull(key("/search", "q", "stroke", "size", "5000"));
+        assertNull(key("/search", "q", "stroke", "page", "-1"));
+        assertNull(key("/search/other"));
+    }
+
+    @Test
+    void countsTheSameRequestsAsSearchService() {
+        assertTrue(ResponseCacheKeys.criteria(request("/search", "q", "stroke"), null).isSearch());
+        assertTrue(ResponseCacheKeys.criteria(request("/search", "year_from", " 2020 "), null).isSearch());
+        assertFalse(ResponseCacheKeys.criteria(request("/search", "q", "  "), null).isSearch());
+        assertFalse(ResponseCacheKeys.criteria(request("/search", "year_to", ""), null).isSearch());
+    }
+
+    private static String key(String path, String... parameters) {
+        return ResponseCacheKeys.of(7, request(path, parameters));
+    }
+
+    private static MockHttpServletRequest request(String path, String... parameters) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        for (int i = 0; i < parameters.length; i += 2) {
+            request.addParameter(parameters[i], parameters[i + 1]);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,76 @@
+package com.guidescope.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    @Test
+    void admitsTheBurstThenOnePermitPerInterval() {
+        // 60 per minute: one permit per second, 3 at once
+        RateLimiter limiter = new RateLimiter(60, Duration.ofMinutes(1), 3, 100, clock::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        }
+        long wait = limiter.tryAcquire("10.0.0.1");
+        assertEquals(SECOND, wait);
+
+        clock.addAndGet(wait);
+        assertEquals(0, limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1") > 0);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumePermits() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(1), 1, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(SECOND, limiter.tryAcquire("a"));
+        }
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void refillsToTheBurstAfterIdling() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(1), 2, 100, clock::get);
+        limiter.tryAcquire("a");
+        limiter.tryAcquire("a");
+
+        clock.addAndGet(60 * SECOND);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+    }
+
+    @Test
+    void keepsOneBucketPerKey() {
+        RateLimiter limiter = new RateLimiter(1, Duration.ofSeconds(1), 1, 100, clock::get);
+
+        assertEquals(0, limiter.tryAcquire("a"));
+        assertTrue(limiter.tryAcquire("a") > 0);
+        assertEquals(0, limiter.tryAcquire("b"));
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, Duration.ofSeconds(1), 1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, Duration.ZERO, 1, 100));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, Duration.ofSeconds(1), 0, 100));
+    }
+}
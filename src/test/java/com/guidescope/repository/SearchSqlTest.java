@@ -0,0 +1,197 @@
+package com.guidescope.repository;
+
+import com.guidescope.search.SearchCriteria;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks every one of the 256 SearchSql shapes: each statement binds exactly
+ * the inputs of its shape and none disables an absent input at run time.
+ */
+class SearchSqlTest {
+
+    private static final String COLUMNS = "id, title";
+
+    // Shape bit -> the named parameter it binds
+    private static final Map<Integer, String> PARAMETERS = Map.of(
+            SearchSql.SLUG, ":slug",
+            SearchSql.QUERY, ":query",
+            SearchSql.PREFIX, ":prefixQuery",
+            SearchSql.TYPES, ":types",
+            SearchSql.REGION, ":region",
+            SearchSql.FIELD, ":field",
+            SearchSql.YEAR_FROM, ":year_from",
+            SearchSql.YEAR_TO, ":year_to");
+
+    @Test
+    void bindsExactlyTheInputsOfItsShape() {
+        for (int shape = 0; shape < 256; shape++) {
+            SearchSql sql = SearchSql.of(shape);
+            String page = sql.page(COLUMNS);
+
+            assertEquals(shape, sql.shape());
+            for (Map.Entry<Integer, String> parameter : PARAMETERS.entrySet()) {
+                boolean expected = bound(shape, parameter.getKey());
+                assertEquals(expected, page.contains(parameter.getValue()),
+                        "shape " + shape + " page " + parameter.getValue());
+                if (parameter.getKey() != SearchSql.SLUG || has(shape, SearchSql.QUERY)) {
+                    // Without a query the slug only boosts the score, it does not filter
+                    assertEquals(expected, sql.count().contains(parameter.getValue()),
+                            "shape " + shape + " count " + parameter.getValue());
+                }
+            }
+        }
+    }
+
+    @Test
+    void neverDisablesAnAbsentInputWithIsNull() {
+        for (int shape = 0; shape < 256; shape++) {
+            SearchSql sql = SearchSql.of(shape);
+
+            for (String statement : List.of(sql.page(COLUMNS), sql.all(COLUMNS), sql.count(), sql.countUpTo(),
+                    sql.ids(), sql.facets())) {
+                assertFalse(statement.contains("IS NULL"), "shape " + shape + ": " + statement);
+            }
+        }
+    }
+
+    @Test
+    void scoresInDoublePrecision() {
+        for (int shape = 0; shape < 256; shape++) {
+            String select = SearchSql.of(shape).select(COLUMNS);
+
+            assertTrue(select.contains(" AS double precision) AS score,"), "shape " + shape + ": " + select);
+        }
+    }
+
+    @Test
+    void ranksOnlyWhenThereIsAQueryOrSlug() {
+        for (int shape = 0; shape < 256; shape++) {
+            String all = SearchSql.of(shape).all(COLUMNS);
+            String order = has(shape, SearchSql.QUERY) ? "ORDER BY score DESC, year DESC, id"
+                    : has(shape, SearchSql.SLUG) ? "ORDER BY score DESC, sort_year DESC, id"
+                    : "ORDER BY year DESC, id";
+
+            assertTrue(all.endsWith(order), "shape " + shape + ": " + all);
+        }
+    }
+
+    @Test
+    void pinsASlugWithoutQueryThroughALimitedProbePerBranch() {
+        for (int shape = 0; shape < 256; shape++) {
+            if (!has(shape, SearchSql.SLUG) || has(shape, SearchSql.QUERY)) {
+                continue;
+            }
+            SearchSql sql = SearchSql.of(shape);
+            String page = sql.page(COLUMNS);
+            String after = sql.after(COLUMNS);
+
+            // Each branch stops after the page instead of scoring and sorting every row
+            assertTrue(page.contains("WHERE slug = :slug"), "shape " + shape + ": " + page);
+            assertTrue(page.contains("WHERE slug <> :slug"), "shape " + shape + ": " + page);
+            assertEquals(2, occurrences(page, "ORDER BY year DESC, id\nLIMIT :limit + :offset)"), "shape " + shape);
+            assertTrue(page.endsWith("ORDER BY score DESC, sort_year DESC, id\nLIMIT :limit OFFSET :offset"));
+            assertEquals(2, occurrences(after, "score < CAST(:after_score AS double precision)"), "shape " + shape);
+            assertTrue(after.endsWith("ORDER BY score DESC, sort_year DESC, id\nLIMIT :limit"));
+            // Counting needs no slug: every filtered row matches
+            assertFalse(sql.count().contains(":slug"), "shape " + shape);
+        }
+    }
+
+    @Test
+    void keysetPagesCompareTheCursorInTheScoreType() {
+        String after = SearchSql.of(SearchSql.QUERY | SearchSql.PREFIX).after(COLUMNS);
+
+        assertTrue(after.startsWith("SELECT * FROM (\nSELECT id, title,\nCAST(CASE"));
+        assertTrue(after.contains("score < CAST(:after_score AS double precision)"));
+        assertTrue(after.endsWith("LIMIT :limit"));
+    }
+
+    @Test
+    void facetsDropOnlyEachDimensionsOwnFilter() {
+        for (int shape = 0; shape < 256; shape++) {
+            String[] branches = SearchSql.of(shape).facets().split("\nUNION ALL\n");
+
+            assertEquals(5, branches.length, "shape " + shape);
+            assertTrue(branches[0].contains("\nSELECT 'type' AS dimension"), "shape " + shape);
+            assertFilters(shape, branches[0], SearchSql.TYPES);
+            assertTrue(branches[1].startsWith("SELECT 'region' AS dimension"), "shape " + shape);
+            assertFilters(shape, branches[1], SearchSql.REGION);
+            assertTrue(branches[2].startsWith("SELECT 'field' AS dimension"), "shape " + shape);
+            assertFilters(shape, branches[2], SearchSql.FIELD);
+            assertTrue(branches[3].startsWith("SELECT 'year' AS dimension"), "shape " + shape);
+            assertFilters(shape, branches[3], SearchSql.YEAR_FROM | SearchSql.YEAR_TO);
+            assertTrue(branches[4].startsWith("SELECT 'total'"), "shape " + shape);
+            assertFilters(shape, branches[4], 0);
+        }
+    }
+
+    @Test
+    void estimatesTheCountFromThePlanOfTheMatchScan() {
+        SearchSql sql = SearchSql.of(SearchSql.QUERY | SearchSql.REGION);
+
+        assertEquals("EXPLAIN " + sql.ids(), sql.countEstimate());
+        assertTrue(sql.ids().startsWith("SELECT id FROM documents\nWHERE ("));
+    }
+
+    @Test
+    void shapeOfMatchesThePresentInputs() {
+        for (int shape = 0; shape < 256; shape++) {
+            if (has(shape, SearchSql.PREFIX) && !has(shape, SearchSql.QUERY)) {
+                // A prefix query is only derived from a query
+                continue;
+            }
+            SearchCriteria criteria = SearchCriteria.builder()
+                    .slug(has(shape, SearchSql.SLUG) ? "aha-2021" : null)
+                    .query(has(shape, SearchSql.QUERY) ? "heart failure" : "")
+                    .prefixQuery(has(shape, SearchSql.PREFIX) ? "heart:* & failure:*" : "")
+                    .types(has(shape, SearchSql.TYPES) ? new String[] { "guideline" } : new String[0])
+                    .region(has(shape, SearchSql.REGION) ? "US" : null)
+                    .field(has(shape, SearchSql.FIELD) ? "Cardiology" : null)
+                    .yearFrom(has(shape, SearchSql.YEAR_FROM) ? 2015 : null)
+                    .yearTo(has(shape, SearchSql.YEAR_TO) ? 2024 : null)
+                    .build();
+
+            assertEquals(shape, SearchSql.shapeOf(criteria));
+        }
+    }
+
+    /**
+     * The filter parameters of the branch are those of the shape except the
+     * dimension's own.
+     */
+    private static void assertFilters(int shape, String branch, int ownFilter) {
+        String filters = branch.substring(branch.lastIndexOf("FROM matched"));
+        for (int filter : new int[] { SearchSql.TYPES, SearchSql.REGION, SearchSql.FIELD, SearchSql.YEAR_FROM,
+                SearchSql.YEAR_TO }) {
+            assertEquals(has(shape, filter) && (ownFilter & filter) == 0, filters.contains(PARAMETERS.get(filter)),
+                    "shape " + shape + " " + PARAMETERS.get(filter) + ": " + branch);
+        }
+    }
+
+    /**
+     * Whether a statement of the shape binds the input's parameter: the
+     * prefix query is only used together with a query.
+     */
+    private static boolean bound(int shape, int input) {
+        if (input == SearchSql.PREFIX) {
+            return has(shape, SearchSql.PREFIX) && has(shape, SearchSql.QUERY);
+        }
+        return has(shape, input);
+    }
+
+    private static int occurrences(String statement, String part) {
+        return statement.split(Pattern.quote(part), -1).length - 1;
+    }
+
+    private static boolean has(int shape, int input) {
+        return (shape & input) != 0;
+    }
+}
@@ -0,0 +1,124 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.model.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Keyset paging over rows that tie on score (and year) at page boundaries.
+ */
+class InvertedIndexKeysetTest {
+
+    // PostgreSQL uuid order: the halves compare as unsigned numbers, so the last two sort after the first four
+    private static final UUID[] IDS = {
+            new UUID(0x0000000000000001L, 0),
+            new UUID(0x0000000000000002L, 0),
+            new UUID(0x0000000000000002L, 1),
+            new UUID(0x7fffffffffffffffL, 0),
+            new UUID(0x8000000000000000L, 0),
+            new UUID(0xffffffffffffffffL, 0),
+    };
+
+    private final InvertedIndex index = InvertedIndex.build(List.of(
+            document(IDS[0], 2020, "Heart failure guideline"),
+            document(IDS[1], 2021, "Heart failure guideline"),
+            document(IDS[2], 2020, "Heart failure guideline"),
+            document(IDS[3], 2020, "Chronic heart failure in adults"),
+            document(IDS[4], 2021, "Heart failure guideline"),
+            document(IDS[5], 2020, "Heart failure guideline")));
+
+    @Test
+    void pagesWithoutQueryVisitEveryRowOnce() {
+        // No query: every row scores 0, so pages are cut inside (year, id) runs
+        SearchCriteria criteria = criteria("");
+
+        for (int limit = 1; limit <= IDS.length + 1; limit++) {
+            assertEquals(ids(index.search(criteria, Pageable.unpaged())), walk(criteria, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void pagesWithEqualFloatScoresVisitEveryRowOnce() {
+        SearchCriteria criteria = criteria("heart failure");
+
+        for (int limit = 1; limit <= IDS.length + 1; limit++) {
+            assertEquals(ids(index.search(criteria, Pageable.unpaged())), walk(criteria, limit), "limit " + limit);
+        }
+    }
+
+    @Test
+    void breaksScoreTiesByYearThenUnsignedId() {
+        List<UUID> order = walk(criteria(""), 2);
+
+        assertEquals(List.of(IDS[1], IDS[4], IDS[0], IDS[2], IDS[3], IDS[5]), order);
+    }
+
+    @Test
+    void cursorOfLastRowOnAPageExcludesItsTies() {
+        SearchSlice first = index.searchAfter(criteria(""), null, 3);
+
+        SearchSlice second = index.searchAfter(criteria(""), first.getNext(), 3);
+
+        assertEquals(List.of(IDS[1], IDS[4], IDS[0]), ids(first.getResults()));
+        assertEquals(List.of(IDS[2], IDS[3], IDS[5]), ids(second.getResults()));
+        assertNull(second.getNext());
+    }
+
+    /**
+     * Walks every keyset page the way a client does, through the encoded
+     * token, and returns the ids in page order.
+     */
+    private List<UUID> walk(SearchCriteria criteria, int limit) {
+        List<UUID> seen = new ArrayList<>();
+        Set<UUID> unique = new HashSet<>();
+        SearchCursor after = null;
+        do {
+            SearchSlice slice = index.searchAfter(criteria, after, limit);
+            assertTrue(slice.getResults().size() <= limit);
+            for (SearchResultDTO result : slice.getResults()) {
+                assertTrue(unique.add(result.getId()), "repeated " + result.getId());
+                seen.add(result.getId());
+            }
+            after = (slice.getNext() != null) ? SearchCursor.decode(slice.getNext().encode()) : null;
+        } while (after != null);
+        return seen;
+    }
+
+    private static SearchCriteria criteria(String query) {
+        NormalizedQuery normalized = QueryNormalizer.normalize(query, true);
+        return SearchCriteria.builder()
+                .query(query)
+                .normalizedQuery(normalized.getNormalized())
+                .prefixQuery(normalized.getPrefixQuery())
+                .tokens(normalized.getTokens())
+                .build();
+    }
+
+    private static List<UUID> ids(List<SearchResultDTO> results) {
+        return results.stream().map(SearchResultDTO::getId).toList();
+    }
+
+    private static Document document(UUID id, int year, String title) {
+        return Document.builder()
+                .id(id)
+                .type("guideline")
+                .year(year)
+                .title(title)
+                .link("https://example.org/" + id)
+                .region("EU")
+                .field("Cardiology")
+                .slug("doc-" + id)
+                .build();
+    }
+}
@@ -0,0 +1,56 @@
+package com.guidescope.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class QueryNormalizerTest {
+
+    @Test
+    void lowerCasesWordsAndCollapsesSeparators() {
+        NormalizedQuery normalized = QueryNormalizer.normalize("  AHA/ACC  Heart-Failure 2022 ", true);
+
+        assertEquals("aha acc heart failure 2022", normalized.getNormalized());
+        assertEquals(List.of("aha", "acc", "heart", "failure", "2022"), normalized.getTokens());
+    }
+
+    @Test
+    void buildsThePrefixQueryOnlyWhenAsked() {
+        assertEquals("heart:* & failure:*", QueryNormalizer.normalize("Heart failure", true).getPrefixQuery());
+        assertEquals("", QueryNormalizer.normalize("Heart failure", false).getPrefixQuery());
+    }
+
+    @Test
+    void dropsTsqueryOperators() {
+        NormalizedQuery normalized = QueryNormalizer.normalize("a & !b | (c:*) <-> 'd'", true);
+
+        assertEquals("a b c d", normalized.getNormalized());
+        assertEquals("a:* & b:* & c:* & d:*", normalized.getPrefixQuery());
+    }
+
+    @Test
+    void keepsCombiningMarksInsideTheWord() {
+        // "Ménière" with e + U+0301 and e + U+0300 decomposed, and precomposed
+        String decomposed = "Me\u0301nie\u0300re disease";
+
+        assertEquals(List.of("me\u0301nie\u0300re", "disease"), QueryNormalizer.tokenize(decomposed));
+        assertEquals(List.of("m\u00e9ni\u00e8re"), QueryNormalizer.tokenize("M\u00e9ni\u00e8re"));
+    }
+
+    @Test
+    void returnsTheEmptyQueryWithoutWords() {
+        assertSame(NormalizedQuery.EMPTY, QueryNormalizer.normalize(null, true));
+        assertSame(NormalizedQuery.EMPTY, QueryNormalizer.normalize("", true));
+        assertSame(NormalizedQuery.EMPTY, QueryNormalizer.normalize(" -/&| ", true));
+    }
+
+    @Test
+    void reusesInputThatIsAlreadyNormalized() {
+        String input = "heart failure";
+
+        assertSame(input, QueryNormalizer.normalize(input, false).getNormalized());
+    }
+}
@@ -0,0 +1,76 @@
+package com.guidescope.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SearchCursorTest {
+
+    private static final UUID ID = UUID.fromString("8f14e45f-ceea-467f-a0e6-1b2c3d4e5f60");
+
+    @Test
+    void roundTripsTheSortKey() {
+        SearchCursor cursor = new SearchCursor(0.24317866563796997, 2021, ID);
+
+        assertEquals(cursor, SearchCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void roundTripsScoresWidenedFromFloat() {
+        // ts_rank and InvertedIndex scores are floats; the widened value must come back bit for bit
+        for (float score : new float[] { 0.0607927f, 1f / 3, 0.1f * 2 + 0.0303964f, 100f, 1000f, 0f }) {
+            SearchCursor cursor = new SearchCursor(score, 2019, ID);
+
+            SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+            assertEquals(Double.doubleToLongBits(score), Double.doubleToLongBits(decoded.getScore()));
+        }
+    }
+
+    @Test
+    void encodesAsUrlSafeTokenWithoutPadding() {
+        String token = new SearchCursor(1.0 / 7, 2020, ID).encode();
+
+        assertEquals(-1, indexOfAny(token, "+/=:"));
+    }
+
+    @Test
+    void firstPageTokenStartsCursorMode() {
+        assertNull(SearchCursor.decode(SearchCursor.FIRST_PAGE));
+        assertNull(SearchCursor.decode(" * "));
+        assertNull(SearchCursor.decode(""));
+        assertNull(SearchCursor.decode(null));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(encodeRaw("v1:0.5:2020")));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(encodeRaw("v1:abc:2020:" + ID)));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(encodeRaw("v1:0.5:2020:not-a-uuid")));
+    }
+
+    @Test
+    void rejectsOtherVersions() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode(encodeRaw("v0:0.5:2020:" + ID)));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int indexOfAny(String text, String chars) {
+        for (int i = 0; i < text.length(); i++) {
+            if (chars.indexOf(text.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,153 @@
+package com.guidescope.search;
+
+import com.guidescope.dto.SearchResultDTO;
+import com.guidescope.model.Document;
+import com.guidescope.repository.DocumentRepository;
+import com.guidescope.repository.SearchJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.abort;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the in-memory and the PostgreSQL engine on the same documents and
+ * expects the same results in the same order.
+ *
+ * Needs a PostgreSQL with the GuideScope schema (the same db.url, db.user and
+ * db.password system properties as the benchmarks, defaults matching
+ * application.yml) and is skipped when there is none. The fixture goes into a
+ * temporary documents table, which hides the real one for this session only.
+ */
+class SearchEngineParityTest {
+
+    private static final Pageable PAGE = PageRequest.of(0, 50);
+
+    private static final List<Document> DOCUMENTS = List.of(
+            document(1, "guideline", "EU", "Cardiology", 2021, "Heart failure management in adults",
+                    "McMurray J", "cardiomyopathy"),
+            // "heart" only appears in the keywords, which search_vector does not cover
+            document(2, "guideline", "EU", "Cardiology", 2020, "Atrial fibrillation screening", "Hindricks G",
+                    "heart"),
+            document(3, "review", "US", "Obstetrics", 2019, "Hypertension in pregnancy", "Brown M",
+                    "preeclampsia"),
+            document(4, "guideline", "US", "Nephrology", 2022, "Chronic kidney disease and hypertension",
+                    "Stevens P", "renal"),
+            document(5, "guideline", "UK", "Respiratory", 2018, "Asthma diagnosis and monitoring", "Heart S",
+                    "spirometry"),
+            document(6, "guideline", "US", "Obstetrics", 2021, "Diabetes screening in pregnancy", "Metzger B",
+                    "gestational"));
+
+    private static SingleConnectionDataSource dataSource;
+    private static PostgresSearchEngine postgres;
+    private static InMemorySearchEngine memory;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                System.getProperty("db.url", "jdbc:postgresql://localhost:5432/postgres?prepareThreshold=0"),
+                System.getProperty("db.user", "postgres"), System.getProperty("db.password", "password"), true);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        try {
+            jdbc.execute("CREATE TEMPORARY TABLE documents (LIKE documents INCLUDING DEFAULTS INCLUDING INDEXES)");
+            jdbc.execute("""
+                    CREATE TRIGGER tsvectorupdate BEFORE INSERT OR UPDATE ON pg_temp.documents
+                    FOR EACH ROW EXECUTE FUNCTION documents_search_vector_trigger()""");
+        } catch (DataAccessException e) {
+            dataSource.destroy();
+            abort("No migrated PostgreSQL at " + dataSource.getUrl() + ": " + e.getMessage());
+        }
+        for (Document document : DOCUMENTS) {
+            jdbc.update("""
+                    INSERT INTO documents (id, type, year, title, link, region, field, authors, keywords, slug)
+                    VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)""",
+                    document.getId(), document.getType(), document.getYear(), document.getTitle(), document.getLink(),
+                    document.getRegion(), document.getField(), document.getAuthors(), document.getKeywords(),
+                    document.getSlug());
+        }
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        postgres = new PostgresSearchEngine(new SearchJdbcRepository(dataSource, new SearchMetrics(registry)),
+                new SlowQueryProfiler(false, Duration.ofSeconds(1), 0, 0, registry));
+        DocumentRepository documentRepository = mock(DocumentRepository.class);
+        when(documentRepository.findAll(Sort.by("id"))).thenReturn(DOCUMENTS);
+        memory = new InMemorySearchEngine(documentRepository, postgres);
+        memory.refresh();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (dataSource != null) {
+            dataSource.destroy();
+        }
+    }
+
+    @Test
+    void matchesTheSameFieldsAsSearchVector() {
+        assertSameResults(criteria("heart", null, null, null));
+        assertSameResults(criteria("cardiomyopathy", null, null, null));
+        assertSameResults(criteria("spirometry", null, null, null));
+        assertSameResults(criteria("hypertension", null, null, null));
+        assertSameResults(criteria("screening", null, null, null));
+    }
+
+    @Test
+    void matchesPrefixesAndExactTitles() {
+        assertSameResults(criteria("hyper", null, null, null));
+        assertSameResults(criteria("asthma diagnosis and monitoring", null, null, true));
+    }
+
+    @Test
+    void appliesTheSameFiltersAndSlug() {
+        assertSameResults(criteria("pregnancy", new String[] { "guideline" }, null, null));
+        assertSameResults(criteria("", null, "US", null));
+        assertSameResults(criteria("", null, null, null));
+        assertSameResults(SearchCriteria.of("", null, null, null, null, null, "doc-3", false, null));
+    }
+
+    private static void assertSameResults(SearchCriteria criteria) {
+        List<UUID> expected = ids(postgres.search(criteria, PAGE));
+
+        assertEquals(expected, ids(memory.search(criteria, PAGE)), "query '" + criteria.getQuery() + "'");
+        assertEquals(postgres.count(criteria, 0), memory.count(criteria, 0), "query '" + criteria.getQuery() + "'");
+    }
+
+    private static SearchCriteria criteria(String query, String[] types, String region, Boolean exact) {
+        return SearchCriteria.of(query, types, region, null, null, null, null, exact, null);
+    }
+
+    private static List<UUID> ids(List<SearchResultDTO> results) {
+        return results.stream().map(SearchResultDTO::getId).toList();
+    }
+
+    // Ids in the same order for Java and PostgreSQL, as the index expects documents in id order
+    private static Document document(int id, String type, String region, String field, int year, String title,
+            String authors, String keyword) {
+        return Document.builder()
+                .id(new UUID(0, id))
+                .type(type)
+                .year(year)
+                .title(title)
+                .link("https://example.org/" + id)
+                .region(region)
+                .field(field)
+                .authors(authors)
+                .keywords(new String[] { keyword })
+                .slug("doc-" + id)
+                .build();
+    }
+}